@@ -0,0 +1,109 @@
+package pl.psalkowski.chunkanchor.benchmark;
+
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.psalkowski.chunkanchor.manager.AnchorManager;
+import pl.psalkowski.chunkanchor.manager.AnchorManager.Anchor;
+import pl.psalkowski.chunkanchor.metrics.AnchorMetrics;
+import pl.psalkowski.chunkanchor.model.LoadMode;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnchorManagerBenchmark {
+
+    private static final UUID NEW_OWNER = new UUID(0xBEEFL, 0);
+
+    @Param({"1000", "10000", "100000"})
+    public int anchors;
+
+    private StubServer server;
+    private World world;
+    private AnchorManager anchorManager;
+    private UUID[] owners;
+    private String[] names;
+    private int[] chunkX;
+    private int[] chunkZ;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = StubServer.start();
+        world = server.createWorld(BenchmarkData.WORLD);
+        Map<UUID, Map<String, Anchor>> data = BenchmarkData.anchors(anchors, LoadMode.DEFAULT);
+        BenchmarkData.writeJournal(server.getDataFolder(), data);
+        anchorManager = new AnchorManager(server.getPlugin(), BenchmarkData.config("journal"), new AnchorMetrics());
+
+        owners = new UUID[anchors];
+        names = new String[anchors];
+        chunkX = new int[anchors];
+        chunkZ = new int[anchors];
+        for (int i = 0; i < anchors; i++) {
+            owners[i] = BenchmarkData.owner(i);
+            names[i] = BenchmarkData.name(i);
+            Anchor anchor = data.get(owners[i]).get(names[i]);
+            chunkX[i] = anchor.chunkX() + (i % 7) - 3;
+            chunkZ[i] = anchor.chunkZ() + (i % 5) - 2;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        anchorManager.flush();
+        server.stop();
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = index + 1 == anchors ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public boolean addRemove() {
+        anchorManager.addAnchor(NEW_OWNER, "bench", world, 0, 0);
+        return anchorManager.removeAnchor(NEW_OWNER, "bench");
+    }
+
+    @Benchmark
+    public Anchor getAnchor() {
+        int index = next();
+        return anchorManager.getAnchor(owners[index], names[index]);
+    }
+
+    @Benchmark
+    public Map<UUID, Map<String, Anchor>> getAllAnchors() {
+        return anchorManager.getAllAnchors();
+    }
+
+    @Benchmark
+    public int getEnabledAnchorCount() {
+        return anchorManager.getEnabledAnchorCount(owners[next()]);
+    }
+
+    @Benchmark
+    public boolean isChunkAnchored() {
+        int index = next();
+        return anchorManager.isChunkAnchored(BenchmarkData.WORLD, chunkX[index], chunkZ[index]);
+    }
+}
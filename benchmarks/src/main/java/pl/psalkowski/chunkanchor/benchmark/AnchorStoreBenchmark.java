@@ -0,0 +1,111 @@
+package pl.psalkowski.chunkanchor.benchmark;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.psalkowski.chunkanchor.manager.AnchorManager.Anchor;
+import pl.psalkowski.chunkanchor.metrics.AnchorMetrics;
+import pl.psalkowski.chunkanchor.model.LoadMode;
+import pl.psalkowski.chunkanchor.storage.AnchorJournal;
+import pl.psalkowski.chunkanchor.storage.AnchorStore;
+import pl.psalkowski.chunkanchor.storage.JournalAnchorStore;
+import pl.psalkowski.chunkanchor.storage.YamlAnchorStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full load and full save of the anchor data for each storage backend. A full save is a rewrite of
+ * anchors.yml for the yaml backend and a snapshot compaction for the journal backend.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AnchorStoreBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int anchors;
+
+    @Param({"yaml", "journal"})
+    public String backend;
+
+    private StubServer server;
+    private YamlConfiguration config;
+    private AnchorMetrics metrics;
+    private Map<UUID, Map<String, Anchor>> data;
+    private AnchorJournal journal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = StubServer.start();
+        config = BenchmarkData.config(backend);
+        metrics = new AnchorMetrics();
+        data = BenchmarkData.anchors(anchors, LoadMode.ALWAYS);
+
+        if (backend.equals("journal")) {
+            BenchmarkData.writeJournal(server.getDataFolder(), data);
+            journal = new AnchorJournal(
+                    new File(server.getDataFolder(), "anchors-save.dat").toPath(),
+                    new File(server.getDataFolder(), "anchors-save.journal").toPath(),
+                    BenchmarkData.LOGGER);
+            journal.load(new HashMap<>());
+        } else {
+            save();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        server.stop();
+    }
+
+    @Benchmark
+    public Map<UUID, Map<String, Anchor>> load() {
+        AnchorStore store = createStore();
+        try {
+            return store.load();
+        } finally {
+            store.close();
+        }
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        if (journal != null) {
+            journal.compact(data);
+            return;
+        }
+        AnchorStore store = createStore();
+        Map.Entry<UUID, Map<String, Anchor>> first = data.entrySet().iterator().next();
+        Map.Entry<String, Anchor> anchor = first.getValue().entrySet().iterator().next();
+        store.anchorPut(first.getKey(), anchor.getKey(), anchor.getValue());
+        store.close();
+    }
+
+    private AnchorStore createStore() {
+        return backend.equals("journal")
+                ? new JournalAnchorStore(server.getPlugin(), config, metrics, () -> data)
+                : new YamlAnchorStore(server.getPlugin(), config, metrics, () -> data);
+    }
+}
@@ -0,0 +1,71 @@
+package pl.psalkowski.chunkanchor.benchmark;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import pl.psalkowski.chunkanchor.manager.AnchorManager.Anchor;
+import pl.psalkowski.chunkanchor.model.LoadMode;
+import pl.psalkowski.chunkanchor.storage.AnchorJournal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+final class BenchmarkData {
+
+    static final String WORLD = "world";
+    static final int ANCHORS_PER_OWNER = 10;
+    static final Logger LOGGER = Logger.getLogger("ChunkAnchorBenchmark");
+
+    private BenchmarkData() {
+    }
+
+    static YamlConfiguration config(String storageType) {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("default-limit", ANCHORS_PER_OWNER + 1);
+        config.set("chunk-radius", 3);
+        config.set("default-load-mode", "PLAYER_ONLINE");
+        config.set("chunk-loading.max-in-flight", 64);
+        config.set("chunk-loading.tickets-per-tick", 1024);
+        config.set("storage.type", storageType);
+        config.set("storage.save-delay-ms", 2000);
+        config.set("storage.compact-after", Integer.MAX_VALUE);
+        return config;
+    }
+
+    static UUID owner(int index) {
+        return new UUID(0xC0FFEEL, index / ANCHORS_PER_OWNER);
+    }
+
+    static String name(int index) {
+        return "anchor" + (index % ANCHORS_PER_OWNER);
+    }
+
+    /**
+     * Spreads anchors over a square area so that roughly a third of them overlap a neighbour.
+     */
+    static Map<UUID, Map<String, Anchor>> anchors(int count, LoadMode loadMode) {
+        Random random = new Random(42);
+        int side = (int) Math.ceil(Math.sqrt(count)) * 6 * 16;
+        Map<UUID, Map<String, Anchor>> anchors = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(side) - side / 2;
+            int z = random.nextInt(side) - side / 2;
+            anchors.computeIfAbsent(owner(i), id -> new HashMap<>())
+                    .put(name(i), new Anchor(WORLD, x, z, loadMode, true));
+        }
+        return anchors;
+    }
+
+    static void writeJournal(File dataFolder, Map<UUID, Map<String, Anchor>> anchors) throws IOException {
+        AnchorJournal journal = new AnchorJournal(
+                new File(dataFolder, "anchors.dat").toPath(),
+                new File(dataFolder, "anchors.journal").toPath(),
+                LOGGER);
+        journal.load(new HashMap<>());
+        journal.compact(anchors);
+        journal.close();
+    }
+}
@@ -0,0 +1,100 @@
+package pl.psalkowski.chunkanchor.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.psalkowski.chunkanchor.manager.AnchorManager;
+import pl.psalkowski.chunkanchor.manager.ChunkLoadManager;
+import pl.psalkowski.chunkanchor.metrics.AnchorMetrics;
+import pl.psalkowski.chunkanchor.model.LoadMode;
+import pl.psalkowski.chunkanchor.scheduler.TaskScheduler;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk activation and release of PLAYER_ONLINE anchors against a stubbed world. Loading is measured
+ * until every chunk is ticketed, so it includes the ticks spent draining the load queue.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkLoadBenchmark {
+
+    private static final long MAX_TICKS = 1_000_000L;
+
+    @State(Scope.Benchmark)
+    public static class Anchors {
+
+        @Param({"1000", "10000", "100000"})
+        public int anchors;
+
+        StubServer server;
+        AnchorManager anchorManager;
+        ChunkLoadManager chunkLoadManager;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            server = StubServer.start();
+            server.createWorld(BenchmarkData.WORLD);
+            BenchmarkData.writeJournal(server.getDataFolder(), BenchmarkData.anchors(anchors, LoadMode.PLAYER_ONLINE));
+            AnchorMetrics metrics = new AnchorMetrics();
+            anchorManager = new AnchorManager(server.getPlugin(), BenchmarkData.config("journal"), metrics);
+            chunkLoadManager = new ChunkLoadManager(server.getPlugin(), BenchmarkData.config("journal"), TaskScheduler.create(server.getPlugin()), anchorManager, metrics, LoadMode.PLAYER_ONLINE);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            chunkLoadManager.unloadAllChunks();
+            anchorManager.flush();
+            server.stop();
+        }
+
+        void loadAll() {
+            chunkLoadManager.loadPlayerOnlineAnchors();
+            server.tickUntilIdle(MAX_TICKS);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Unloaded extends Anchors {
+
+        @TearDown(Level.Invocation)
+        public void unload() {
+            chunkLoadManager.unloadPlayerOnlineAnchors();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Loaded extends Anchors {
+
+        @Setup(Level.Invocation)
+        public void load() {
+            loadAll();
+        }
+    }
+
+    @Benchmark
+    public int loadPlayerOnlineAnchors(Unloaded state) {
+        state.loadAll();
+        return state.chunkLoadManager.getTicketIndex().getTicketedChunkCount();
+    }
+
+    @Benchmark
+    public int unloadPlayerOnlineAnchors(Loaded state) {
+        state.chunkLoadManager.unloadPlayerOnlineAnchors();
+        return state.chunkLoadManager.getTicketIndex().getTicketedChunkCount();
+    }
+}
@@ -0,0 +1,254 @@
+package pl.psalkowski.chunkanchor.benchmark;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import pl.psalkowski.chunkanchor.listener.PlayerConnectionListener;
+import pl.psalkowski.chunkanchor.manager.AnchorManager;
+import pl.psalkowski.chunkanchor.manager.AnchorManager.Anchor;
+import pl.psalkowski.chunkanchor.manager.ChunkLoadManager;
+import pl.psalkowski.chunkanchor.manager.ChunkTicketIndex;
+import pl.psalkowski.chunkanchor.metrics.AnchorMetrics;
+import pl.psalkowski.chunkanchor.metrics.LatencyHistogram;
+import pl.psalkowski.chunkanchor.model.AnchorShape;
+import pl.psalkowski.chunkanchor.model.LoadMode;
+import pl.psalkowski.chunkanchor.scheduler.TaskScheduler;
+import pl.psalkowski.chunkanchor.visualization.AnchorVisualizer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Replays player join/quit traces against the real listener and chunk loading code on a headless
+ * server, and reports the chunk ticket churn they cause.
+ *
+ * <p>Arguments are {@code key=value} pairs: {@code players}, {@code anchors}, {@code hours},
+ * {@code session-minutes}, {@code offline-minutes}, {@code owner-online-share}, {@code always-share},
+ * {@code chunk-radius}, {@code shape} (e.g. {@code rectangle:2x5}), {@code unload-grace-seconds}, {@code max-chunks}, {@code seed}, and {@code trace} for a CSV file of {@code tick,join|quit,uuid}
+ * lines that replaces the generated trace.
+ */
+public final class ChurnSimulator {
+
+    private static final long TICKS_PER_MINUTE = 20L * 60L;
+
+    private record TraceEvent(long tick, boolean join, UUID player) {
+    }
+
+    private final Map<String, String> options;
+    private final Random random;
+    private final LatencyHistogram joinLatency = new LatencyHistogram();
+    private final LatencyHistogram quitLatency = new LatencyHistogram();
+    private final LatencyHistogram tickLatency = new LatencyHistogram();
+    private int peakTickets;
+
+    private ChurnSimulator(Map<String, String> options) {
+        this.options = options;
+        this.random = new Random(Long.parseLong(options.getOrDefault("seed", "1")));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        new ChurnSimulator(options).run();
+    }
+
+    private void run() throws IOException {
+        List<TraceEvent> trace = options.containsKey("trace")
+                ? readTrace(Path.of(options.get("trace")))
+                : generateTrace();
+        List<UUID> players = players(trace);
+
+        StubServer server = StubServer.start();
+        server.createWorld(BenchmarkData.WORLD);
+        BenchmarkData.writeJournal(server.getDataFolder(), anchors(players));
+
+        YamlConfiguration config = BenchmarkData.config("journal");
+        config.set("chunk-radius", intOption("chunk-radius", 3));
+        config.set("unload-grace-seconds", intOption("unload-grace-seconds", 60));
+        config.set("chunk-budget.max-chunks", intOption("max-chunks", 0));
+        config.set("chunk-loading.tickets-per-tick", 8);
+        config.set("chunk-loading.max-in-flight", 16);
+
+        AnchorMetrics metrics = new AnchorMetrics();
+        TaskScheduler scheduler = TaskScheduler.create(server.getPlugin());
+        AnchorManager anchorManager = new AnchorManager(server.getPlugin(), config, metrics);
+        ChunkLoadManager chunkLoadManager = new ChunkLoadManager(server.getPlugin(), config, scheduler, anchorManager, metrics, LoadMode.PLAYER_ONLINE);
+        AnchorVisualizer visualizer = new AnchorVisualizer(config, scheduler, anchorManager);
+        PlayerConnectionListener listener = new PlayerConnectionListener(chunkLoadManager, visualizer);
+        ChunkTicketIndex ticketIndex = chunkLoadManager.getTicketIndex();
+
+        Map<UUID, Player> playerObjects = new HashMap<>();
+        for (UUID id : players) {
+            playerObjects.put(id, server.createPlayer(id));
+        }
+
+        chunkLoadManager.loadAlwaysAnchors();
+        long baselineAdded = drain(server, ticketIndex);
+        long baselineRemoved = server.getTicketsRemoved();
+
+        int joins = 0;
+        int quits = 0;
+        long startTick = server.getCurrentTick();
+        for (TraceEvent event : trace) {
+            while (server.getCurrentTick() - startTick < event.tick()) {
+                tick(server, ticketIndex);
+            }
+
+            Player player = playerObjects.get(event.player());
+            long start;
+            if (event.join()) {
+                server.addOnlinePlayer(player);
+                start = System.nanoTime();
+                listener.onPlayerJoin(new PlayerJoinEvent(player, null));
+                joinLatency.record(System.nanoTime() - start);
+                joins++;
+            } else {
+                start = System.nanoTime();
+                listener.onPlayerQuit(new PlayerQuitEvent(player, null, PlayerQuitEvent.QuitReason.DISCONNECTED));
+                quitLatency.record(System.nanoTime() - start);
+                server.removeOnlinePlayer(player);
+                quits++;
+            }
+            peakTickets = Math.max(peakTickets, ticketIndex.getTicketedChunkCount());
+        }
+        drain(server, ticketIndex);
+
+        System.out.printf(Locale.ROOT, "Players: %d, anchors: %d, events: %d joins / %d quits over %.1f hours%n",
+                players.size(), anchorManager.snapshot().anchorCount(), joins, quits,
+                (server.getCurrentTick() - startTick) / (TICKS_PER_MINUTE * 60.0));
+        System.out.printf(Locale.ROOT, "Startup (ALWAYS anchors): %d chunks ticketed%n", baselineAdded);
+        System.out.printf(Locale.ROOT, "Churn: %d chunks ticketed, %d unticketed, peak %d tickets held, %d held at end%n",
+                server.getTicketsAdded() - baselineAdded, server.getTicketsRemoved() - baselineRemoved,
+                peakTickets, ticketIndex.getTicketedChunkCount());
+        if (chunkLoadManager.getChunkBudget().isEnabled()) {
+            System.out.printf(Locale.ROOT, "Chunk budget: %d reserved, %d anchors suspended at end%n",
+                    chunkLoadManager.getChunkBudget().getReservedChunks(), chunkLoadManager.getSuspendedAnchorCount());
+        }
+        System.out.println("Join handler:   " + format(joinLatency));
+        System.out.println("Quit handler:   " + format(quitLatency));
+        System.out.println("Queue per tick: " + format(tickLatency));
+
+        chunkLoadManager.unloadAllChunks();
+        anchorManager.flush();
+        server.stop();
+    }
+
+    private long drain(StubServer server, ChunkTicketIndex ticketIndex) {
+        while (server.getScheduledTaskCount() > 0) {
+            tick(server, ticketIndex);
+        }
+        return server.getTicketsAdded();
+    }
+
+    private void tick(StubServer server, ChunkTicketIndex ticketIndex) {
+        if (server.getScheduledTaskCount() == 0) {
+            server.tick();
+            return;
+        }
+        long start = System.nanoTime();
+        server.tick();
+        tickLatency.record(System.nanoTime() - start);
+        peakTickets = Math.max(peakTickets, ticketIndex.getTicketedChunkCount());
+    }
+
+    /**
+     * Alternates exponentially distributed offline and online periods for every player.
+     */
+    private List<TraceEvent> generateTrace() {
+        int players = intOption("players", 50);
+        long end = (long) (doubleOption("hours", 24) * 60 * TICKS_PER_MINUTE);
+        double sessionTicks = doubleOption("session-minutes", 45) * TICKS_PER_MINUTE;
+        double offlineTicks = doubleOption("offline-minutes", 180) * TICKS_PER_MINUTE;
+
+        List<TraceEvent> trace = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            UUID player = new UUID(0xC0FFEEL, i);
+            long tick = (long) (random.nextDouble() * offlineTicks);
+            while (tick < end) {
+                trace.add(new TraceEvent(tick, true, player));
+                tick += 1 + (long) exponential(sessionTicks);
+                trace.add(new TraceEvent(Math.min(tick, end), false, player));
+                tick += 1 + (long) exponential(offlineTicks);
+            }
+        }
+        trace.sort(Comparator.comparingLong(TraceEvent::tick));
+        return trace;
+    }
+
+    private static List<TraceEvent> readTrace(Path file) throws IOException {
+        List<TraceEvent> trace = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split(",");
+            trace.add(new TraceEvent(Long.parseLong(parts[0].trim()), parts[1].trim().equalsIgnoreCase("join"), UUID.fromString(parts[2].trim())));
+        }
+        trace.sort(Comparator.comparingLong(TraceEvent::tick));
+        return trace;
+    }
+
+    private static List<UUID> players(List<TraceEvent> trace) {
+        Map<UUID, Boolean> players = new LinkedHashMap<>();
+        for (TraceEvent event : trace) {
+            players.put(event.player(), Boolean.TRUE);
+        }
+        return new ArrayList<>(players.keySet());
+    }
+
+    private Map<UUID, Map<String, Anchor>> anchors(List<UUID> players) {
+        int count = intOption("anchors", 2000);
+        double ownerOnlineShare = doubleOption("owner-online-share", 0.3);
+        double alwaysShare = doubleOption("always-share", 0.1);
+        int side = (int) Math.ceil(Math.sqrt(count)) * 6 * 16;
+        AnchorShape shape = options.containsKey("shape") ? AnchorShape.parse(options.get("shape")) : null;
+
+        Map<UUID, Map<String, Anchor>> anchors = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            double roll = random.nextDouble();
+            LoadMode mode = roll < alwaysShare ? LoadMode.ALWAYS
+                    : roll < alwaysShare + ownerOnlineShare ? LoadMode.OWNER_ONLINE
+                    : LoadMode.PLAYER_ONLINE;
+            Anchor anchor = new Anchor(BenchmarkData.WORLD, random.nextInt(side) - side / 2, random.nextInt(side) - side / 2, mode, true, 0, shape);
+            anchors.computeIfAbsent(players.get(i % players.size()), id -> new HashMap<>())
+                    .put("anchor" + (i / players.size()), anchor);
+        }
+        return anchors;
+    }
+
+    private double exponential(double mean) {
+        return -mean * Math.log(1.0 - random.nextDouble());
+    }
+
+    private int intOption(String key, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(key, String.valueOf(defaultValue)));
+    }
+
+    private double doubleOption(String key, double defaultValue) {
+        return Double.parseDouble(options.getOrDefault(key, String.valueOf(defaultValue)));
+    }
+
+    private static String format(LatencyHistogram histogram) {
+        return String.format(Locale.ROOT, "%d samples, mean %.3f ms, p99 %.3f ms, max %.3f ms",
+                histogram.getCount(), histogram.getMeanNanos() / 1e6,
+                histogram.getPercentileNanos(99) / 1e6, histogram.getMaxNanos() / 1e6);
+    }
+}
@@ -0,0 +1,283 @@
+package pl.psalkowski.chunkanchor.benchmark;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Headless stand-in for the Paper server, built from dynamic proxies. Scheduled tasks only run when
+ * {@link #tick()} is called, chunk loads complete immediately and chunk tickets are only counted.
+ */
+public final class StubServer {
+
+    private static final Logger LOGGER = Logger.getLogger("ChunkAnchor");
+    private static StubServer current;
+
+    private final Map<String, World> worlds = new HashMap<>();
+    private final Map<UUID, Player> onlinePlayers = new LinkedHashMap<>();
+    private final List<StubTask> tasks = new ArrayList<>();
+    private final Path dataFolder;
+    private final Plugin plugin;
+    private final Chunk chunk;
+    private long ticks;
+    private long ticketsAdded;
+    private long ticketsRemoved;
+    private double averageTickTime;
+
+    private StubServer() throws IOException {
+        LOGGER.setLevel(Level.WARNING);
+        this.dataFolder = Files.createTempDirectory("chunkanchor-bench");
+        this.plugin = proxy(Plugin.class, (self, method, args) -> switch (method.getName()) {
+            case "getDataFolder" -> dataFolder.toFile();
+            case "getLogger" -> LOGGER;
+            case "getName" -> "ChunkAnchor";
+            case "isEnabled" -> true;
+            default -> null;
+        });
+        this.chunk = proxy(Chunk.class, (self, method, args) -> null);
+    }
+
+    /**
+     * Returns a fresh server state. Bukkit accepts only one server per JVM, so a single proxy is
+     * installed on first use and always forwards to the most recently started instance.
+     */
+    public static synchronized StubServer start() throws IOException {
+        if (current == null) {
+            BukkitScheduler scheduler = proxy(BukkitScheduler.class, (self, method, args) -> switch (method.getName()) {
+                case "runTask" -> current.schedule((Runnable) args[1], 0L, -1L);
+                case "runTaskLater" -> current.schedule((Runnable) args[1], (Long) args[2], -1L);
+                case "runTaskTimer" -> current.schedule((Runnable) args[1], (Long) args[2], (Long) args[3]);
+                default -> null;
+            });
+            Server server = proxy(Server.class, (self, method, args) -> switch (method.getName()) {
+                case "getWorld" -> args[0] instanceof String name ? current.worlds.get(name) : null;
+                case "getWorlds" -> new ArrayList<>(current.worlds.values());
+                case "getOnlinePlayers" -> List.copyOf(current.onlinePlayers.values());
+                case "getPlayer" -> args[0] instanceof UUID id ? current.onlinePlayers.get(id) : null;
+                case "getOfflinePlayer" -> args[0] instanceof UUID id ? current.createPlayer(id) : null;
+                case "getScheduler" -> scheduler;
+                case "getLogger" -> LOGGER;
+                case "getName", "getVersion", "getBukkitVersion" -> "stub";
+                case "getAverageTickTime" -> current.averageTickTime;
+                default -> null;
+            });
+            current = new StubServer();
+            Bukkit.setServer(server);
+        } else {
+            current = new StubServer();
+        }
+        return current;
+    }
+
+    public Plugin getPlugin() {
+        return plugin;
+    }
+
+    public File getDataFolder() {
+        return dataFolder.toFile();
+    }
+
+    public World createWorld(String name) {
+        UUID uid = UUID.nameUUIDFromBytes(name.getBytes());
+        World world = proxy(World.class, (self, method, args) -> switch (method.getName()) {
+            case "getName" -> name;
+            case "getUID" -> uid;
+            case "isChunkLoaded" -> true;
+            case "getHighestBlockYAt" -> 64;
+            case "getChunkAtAsync" -> CompletableFuture.completedFuture(chunk);
+            case "addPluginChunkTicket" -> {
+                ticketsAdded++;
+                yield true;
+            }
+            case "removePluginChunkTicket" -> {
+                ticketsRemoved++;
+                yield true;
+            }
+            default -> null;
+        });
+        worlds.put(name, world);
+        return world;
+    }
+
+    public void unloadWorld(String name) {
+        worlds.remove(name);
+    }
+
+    /**
+     * Sets the value reported by {@code Bukkit.getAverageTickTime()}, in milliseconds.
+     */
+    public void setAverageTickTime(double averageTickTime) {
+        this.averageTickTime = averageTickTime;
+    }
+
+    public Player createPlayer(UUID id) {
+        return proxy(Player.class, (self, method, args) -> switch (method.getName()) {
+            case "getUniqueId" -> id;
+            case "getName" -> id.toString();
+            case "isOnline" -> onlinePlayers.containsKey(id);
+            default -> null;
+        });
+    }
+
+    /**
+     * Marks a player online. Paper adds a player to the online list before firing PlayerJoinEvent.
+     */
+    public void addOnlinePlayer(Player player) {
+        onlinePlayers.put(player.getUniqueId(), player);
+    }
+
+    /**
+     * Marks a player offline. Paper removes a player from the online list after PlayerQuitEvent.
+     */
+    public void removeOnlinePlayer(Player player) {
+        onlinePlayers.remove(player.getUniqueId());
+    }
+
+    public long getCurrentTick() {
+        return ticks;
+    }
+
+    /**
+     * Runs one server tick worth of scheduled tasks.
+     */
+    public void tick() {
+        ticks++;
+        for (StubTask task : new ArrayList<>(tasks)) {
+            if (task.cancelled || task.nextRun > ticks) {
+                continue;
+            }
+            task.runnable.run();
+            if (task.period < 0) {
+                task.cancelled = true;
+            } else {
+                task.nextRun = ticks + Math.max(1, task.period);
+            }
+        }
+        tasks.removeIf(task -> task.cancelled);
+    }
+
+    /**
+     * Ticks until no scheduled task is left, or until {@code maxTicks} have passed.
+     */
+    public long tickUntilIdle(long maxTicks) {
+        long start = ticks;
+        while (!tasks.isEmpty() && ticks - start < maxTicks) {
+            tick();
+        }
+        return ticks - start;
+    }
+
+    public int getScheduledTaskCount() {
+        return tasks.size();
+    }
+
+    public long getTicketsAdded() {
+        return ticketsAdded;
+    }
+
+    public long getTicketsRemoved() {
+        return ticketsRemoved;
+    }
+
+    public void stop() throws IOException {
+        tasks.clear();
+        try (Stream<Path> paths = Files.walk(dataFolder)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private BukkitTask schedule(Runnable runnable, long delay, long period) {
+        StubTask task = new StubTask(runnable, ticks + Math.max(1, delay), period);
+        tasks.add(task);
+        return proxy(BukkitTask.class, (self, method, args) -> switch (method.getName()) {
+            case "cancel" -> {
+                task.cancelled = true;
+                yield null;
+            }
+            case "isCancelled" -> task.cancelled;
+            case "getOwner" -> plugin;
+            default -> null;
+        });
+    }
+
+    private static final class StubTask {
+        private final Runnable runnable;
+        private final long period;
+        private long nextRun;
+        private boolean cancelled;
+
+        private StubTask(Runnable runnable, long nextRun, long period) {
+            this.runnable = runnable;
+            this.nextRun = nextRun;
+            this.period = period;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StubServer.class.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> self == args[0];
+                    case "hashCode" -> System.identityHashCode(self);
+                    default -> type.getSimpleName() + "Stub";
+                };
+            }
+            Object result = handler.invoke(self, method, args);
+            return result != null ? result : defaultValue(method.getReturnType());
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        if (type == float.class) {
+            return 0.0f;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
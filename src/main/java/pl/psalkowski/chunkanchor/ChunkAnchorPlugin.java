@@ -2,16 +2,22 @@ package pl.psalkowski.chunkanchor;
 
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import pl.psalkowski.chunkanchor.command.ChunkAnchorCommand;
 import pl.psalkowski.chunkanchor.listener.PlayerConnectionListener;
+import pl.psalkowski.chunkanchor.listener.WorldListener;
 import pl.psalkowski.chunkanchor.manager.AnchorManager;
 import pl.psalkowski.chunkanchor.manager.ChunkLoadManager;
+import pl.psalkowski.chunkanchor.metrics.AnchorMetrics;
 import pl.psalkowski.chunkanchor.model.LoadMode;
+import pl.psalkowski.chunkanchor.scheduler.TaskScheduler;
 import pl.psalkowski.chunkanchor.visualization.AnchorVisualizer;
 
 public class ChunkAnchorPlugin extends JavaPlugin {
 
+    private AnchorMetrics metrics;
     private AnchorManager anchorManager;
     private ChunkLoadManager chunkLoadManager;
     private AnchorVisualizer anchorVisualizer;
@@ -35,25 +41,43 @@ public class ChunkAnchorPlugin extends JavaPlugin {
             defaultLoadMode = LoadMode.PLAYER_ONLINE;
         }
 
-        anchorManager = new AnchorManager(this, getConfig());
-        chunkLoadManager = new ChunkLoadManager(this, getConfig(), anchorManager, defaultLoadMode);
-        anchorVisualizer = new AnchorVisualizer(this, getConfig(), anchorManager);
+        TaskScheduler scheduler = TaskScheduler.create(this);
+        metrics = new AnchorMetrics();
+        anchorManager = new AnchorManager(this, getConfig(), metrics);
+        chunkLoadManager = new ChunkLoadManager(this, getConfig(), scheduler, anchorManager, metrics, defaultLoadMode);
+        anchorVisualizer = new AnchorVisualizer(getConfig(), scheduler, anchorManager);
 
-        ChunkAnchorCommand command = new ChunkAnchorCommand(anchorManager, chunkLoadManager, anchorVisualizer, defaultLoadMode);
+        ChunkAnchorCommand command = new ChunkAnchorCommand(anchorManager, chunkLoadManager, anchorVisualizer, metrics, defaultLoadMode);
         getCommand("chunkanchor").setExecutor(command);
         getCommand("chunkanchor").setTabCompleter(command);
 
-        getServer().getPluginManager().registerEvents(new PlayerConnectionListener(chunkLoadManager), this);
+        getServer().getPluginManager().registerEvents(new PlayerConnectionListener(chunkLoadManager, anchorVisualizer), this);
+        getServer().getPluginManager().registerEvents(new WorldListener(chunkLoadManager), this);
 
         chunkLoadManager.loadAlwaysAnchors();
+        chunkLoadManager.getLagShedder().start();
+        for (Player player : getServer().getOnlinePlayers()) {
+            chunkLoadManager.getPriorities().onJoin(player);
+            chunkLoadManager.onOwnerJoin(player.getUniqueId());
+        }
+        if (!getServer().getOnlinePlayers().isEmpty()) {
+            chunkLoadManager.loadPlayerOnlineAnchors();
+        }
 
         getLogger().info("ChunkAnchor enabled! Default limit: " + defaultLimit + ", Chunk radius: " + chunkRadius + ", Show duration: " + showDuration + "s, Default mode: " + defaultLoadMode);
     }
 
     @Override
     public void onDisable() {
+        if (anchorVisualizer != null) {
+            anchorVisualizer.stop();
+        }
         if (chunkLoadManager != null) {
             chunkLoadManager.unloadAllChunks();
+            chunkLoadManager.getPriorities().close();
+        }
+        if (anchorManager != null) {
+            anchorManager.flush();
         }
         getLogger().info("ChunkAnchor disabled!");
     }
@@ -69,4 +93,12 @@ public class ChunkAnchorPlugin extends JavaPlugin {
     public AnchorVisualizer getAnchorVisualizer() {
         return anchorVisualizer;
     }
+
+    public AnchorMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isChunkAnchored(World world, int chunkX, int chunkZ) {
+        return anchorManager.isChunkAnchored(world.getName(), chunkX, chunkZ);
+    }
 }
@@ -3,33 +3,54 @@ package pl.psalkowski.chunkanchor.command;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
+import pl.psalkowski.chunkanchor.manager.AnchorLoadProgress;
 import pl.psalkowski.chunkanchor.manager.AnchorManager;
+import pl.psalkowski.chunkanchor.manager.ChunkBudget;
 import pl.psalkowski.chunkanchor.manager.ChunkLoadManager;
+import pl.psalkowski.chunkanchor.manager.ChunkTicketIndex;
+import pl.psalkowski.chunkanchor.manager.LagShedder;
+import pl.psalkowski.chunkanchor.manager.LoadWindowScheduler;
+import pl.psalkowski.chunkanchor.manager.WorldActivationQueue;
+import pl.psalkowski.chunkanchor.metrics.AnchorMetrics;
+import pl.psalkowski.chunkanchor.metrics.LatencyHistogram;
+import pl.psalkowski.chunkanchor.model.AnchorKey;
+import pl.psalkowski.chunkanchor.model.AnchorLoadState;
+import pl.psalkowski.chunkanchor.model.AnchorShape;
 import pl.psalkowski.chunkanchor.model.LoadMode;
+import pl.psalkowski.chunkanchor.model.LoadSchedule;
 import pl.psalkowski.chunkanchor.visualization.AnchorVisualizer;
 
 import java.util.*;
 
 public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
 
-    private static final List<String> SUBCOMMANDS = Arrays.asList("add", "remove", "list", "show", "mode", "enable", "disable");
-    private static final List<String> LOAD_MODES = Arrays.asList("DEFAULT", "ALWAYS", "PLAYER_ONLINE");
+    private static final List<String> SUBCOMMANDS = Arrays.asList("add", "remove", "list", "show", "mode", "shape", "schedule", "enable", "disable");
+    private static final List<String> ADMIN_SUBCOMMANDS = Arrays.asList("here", "stats", "priority");
+    private static final List<String> SHAPES = Arrays.asList("square", "rectangle", "circle", "chunk", "default");
+    private static final String ADMIN_PERMISSION = "chunkanchor.admin";
+    private static final List<String> LOAD_MODES = Arrays.asList("DEFAULT", "ALWAYS", "PLAYER_ONLINE", "OWNER_ONLINE", "SCHEDULED");
 
     private final AnchorManager anchorManager;
     private final ChunkLoadManager chunkLoadManager;
     private final AnchorVisualizer visualizer;
+    private final AnchorMetrics metrics;
     private final LoadMode defaultLoadMode;
 
-    public ChunkAnchorCommand(AnchorManager anchorManager, ChunkLoadManager chunkLoadManager, AnchorVisualizer visualizer, LoadMode defaultLoadMode) {
+    public ChunkAnchorCommand(AnchorManager anchorManager, ChunkLoadManager chunkLoadManager, AnchorVisualizer visualizer, AnchorMetrics metrics, LoadMode defaultLoadMode) {
         this.anchorManager = anchorManager;
         this.chunkLoadManager = chunkLoadManager;
         this.visualizer = visualizer;
+        this.metrics = metrics;
         this.defaultLoadMode = defaultLoadMode;
     }
 
@@ -52,8 +73,13 @@ public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
             case "list" -> handleList(player);
             case "show" -> handleShow(player, args);
             case "mode" -> handleMode(player, args);
+            case "shape" -> handleShape(player, args);
+            case "schedule" -> handleSchedule(player, args);
             case "enable" -> handleEnable(player, args);
             case "disable" -> handleDisable(player, args);
+            case "here" -> handleHere(player);
+            case "stats" -> handleStats(player);
+            case "priority" -> handlePriority(player, args);
             default -> {
                 sendUsage(player);
                 yield true;
@@ -70,7 +96,7 @@ public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
         String name = args[1];
         UUID playerId = player.getUniqueId();
 
-        if (anchorManager.getEnabledAnchorCount(playerId) >= anchorManager.getLimit()) {
+        if (anchorManager.isAtAnchorLimit(playerId)) {
             player.sendMessage(Component.text("You have reached the maximum of " + anchorManager.getLimit() + " active anchors", NamedTextColor.RED));
             return true;
         }
@@ -84,7 +110,14 @@ public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
         int x = loc.getBlockX();
         int z = loc.getBlockZ();
 
-        boolean added = anchorManager.addAnchor(playerId, name, loc.getWorld(), x, z);
+        int chunkLimit = anchorManager.getChunkLimit(player);
+        AnchorManager.Anchor candidate = new AnchorManager.Anchor(loc.getWorld().getName(), x, z);
+        if (anchorManager.exceedsChunkLimit(playerId, candidate, chunkLimit)) {
+            sendChunkLimitReached(player, candidate, chunkLimit);
+            return true;
+        }
+
+        boolean added = anchorManager.addAnchor(playerId, name, loc.getWorld(), x, z, chunkLimit);
         if (!added) {
             player.sendMessage(Component.text("Failed to create anchor", NamedTextColor.RED));
             return true;
@@ -103,6 +136,11 @@ public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
                 .append(Component.text(loc.getWorld().getName(), NamedTextColor.YELLOW))
                 .build());
 
+        int overlapping = anchorManager.getOverlappingAnchors(new AnchorKey(playerId, name)).size();
+        if (overlapping > 0) {
+            player.sendMessage(Component.text("This anchor overlaps " + overlapping + " other anchor(s); shared chunks are only loaded once", NamedTextColor.GRAY));
+        }
+
         return true;
     }
 
@@ -142,16 +180,24 @@ public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
         }
 
         int enabledCount = anchorManager.getEnabledAnchorCount(playerId);
-        player.sendMessage(Component.text()
+        int chunkLimit = anchorManager.getChunkLimit(player);
+        TextComponent.Builder header = Component.text()
                 .append(Component.text("Your Chunk Anchors (", NamedTextColor.GOLD))
-                .append(Component.text(enabledCount, NamedTextColor.YELLOW))
-                .append(Component.text("/", NamedTextColor.GRAY))
-                .append(Component.text(anchorManager.getLimit(), NamedTextColor.YELLOW))
-                .append(Component.text(" active):", NamedTextColor.GOLD))
-                .build());
+                .append(Component.text(enabledCount, NamedTextColor.YELLOW));
+        if (anchorManager.getLimit() > 0) {
+            header.append(Component.text("/", NamedTextColor.GRAY))
+                    .append(Component.text(anchorManager.getLimit(), NamedTextColor.YELLOW));
+        }
+        header.append(Component.text(" active, ", NamedTextColor.GOLD))
+                .append(Component.text(anchorManager.getChunkUsage(playerId), NamedTextColor.YELLOW));
+        if (chunkLimit > 0) {
+            header.append(Component.text("/", NamedTextColor.GRAY))
+                    .append(Component.text(chunkLimit, NamedTextColor.YELLOW));
+        }
+        player.sendMessage(header.append(Component.text(" chunks):", NamedTextColor.GOLD)).build());
 
         anchors.forEach((name, anchor) -> {
-            boolean isLoaded = chunkLoadManager.isAnchorLoaded(playerId, name);
+            AnchorLoadProgress progress = chunkLoadManager.getAnchorLoadProgress(anchor);
             LoadMode effectiveMode = anchor.loadMode() == LoadMode.DEFAULT ? defaultLoadMode : anchor.loadMode();
 
             TextComponent.Builder builder = Component.text()
@@ -170,8 +216,27 @@ public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
                 builder.append(Component.text(" [DEFAULT->" + effectiveMode.name() + "]", NamedTextColor.GRAY));
             }
 
-            if (isLoaded) {
+            AnchorLoadState state = chunkLoadManager.getAnchorLoadState(anchor);
+            if (state == AnchorLoadState.SUSPENDED) {
+                builder.append(Component.text(" (suspended: chunk budget)", NamedTextColor.GOLD));
+            } else if (state == AnchorLoadState.SHED) {
+                builder.append(Component.text(" (suspended: server lag)", NamedTextColor.GOLD));
+            } else if (state == AnchorLoadState.WAITING_FOR_WORLD) {
+                builder.append(Component.text(" (waiting for world to load)", NamedTextColor.GOLD));
+            } else if (state == AnchorLoadState.FAILED) {
+                builder.append(Component.text(" (" + progress.getFailedChunks() + "/" + progress.getTotalChunks() + " chunks failed to load)", NamedTextColor.RED));
+            } else if (progress != null && progress.isComplete()) {
                 builder.append(Component.text(" (loaded)", NamedTextColor.AQUA));
+            } else if (progress != null) {
+                builder.append(Component.text(" (loading " + progress.getLoadedChunks() + "/" + progress.getTotalChunks() + ")", NamedTextColor.DARK_AQUA));
+            }
+
+            if (anchor.shape() != null) {
+                builder.append(Component.text(" [" + anchor.shape().describe() + "]", NamedTextColor.GRAY));
+            }
+
+            if (effectiveMode == LoadMode.SCHEDULED) {
+                builder.append(Component.text(" [" + describeWindow(anchor) + "]", NamedTextColor.GRAY));
             }
 
             builder.append(Component.text(" - ", NamedTextColor.GRAY))
@@ -214,7 +279,7 @@ public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
 
     private boolean handleMode(Player player, String[] args) {
         if (args.length < 3) {
-            player.sendMessage(Component.text("Usage: /chunkanchor mode <name> <DEFAULT|ALWAYS|PLAYER_ONLINE>", NamedTextColor.RED));
+            player.sendMessage(Component.text("Usage: /chunkanchor mode <name> <DEFAULT|ALWAYS|PLAYER_ONLINE|OWNER_ONLINE|SCHEDULED>", NamedTextColor.RED));
             return true;
         }
 
@@ -232,7 +297,7 @@ public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
         try {
             newMode = LoadMode.valueOf(modeStr);
         } catch (IllegalArgumentException e) {
-            player.sendMessage(Component.text("Invalid mode. Use DEFAULT, ALWAYS, or PLAYER_ONLINE", NamedTextColor.RED));
+            player.sendMessage(Component.text("Invalid mode. Use DEFAULT, ALWAYS, PLAYER_ONLINE, OWNER_ONLINE, or SCHEDULED", NamedTextColor.RED));
             return true;
         }
 
@@ -254,6 +319,153 @@ public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    private boolean handleShape(Player player, String[] args) {
+        if (args.length < 3) {
+            player.sendMessage(Component.text("Usage: /chunkanchor shape <name> <square <radius>|rectangle <width> <length>|circle <radius>|chunk|default>", NamedTextColor.RED));
+            return true;
+        }
+
+        String name = args[1];
+        UUID playerId = player.getUniqueId();
+
+        AnchorManager.Anchor anchor = anchorManager.getAnchor(playerId, name);
+        if (anchor == null) {
+            player.sendMessage(Component.text("No anchor named '" + name + "' found", NamedTextColor.RED));
+            return true;
+        }
+
+        int maxRadius = anchorManager.getMaxShapeRadius();
+        AnchorShape shape;
+        try {
+            // Sizes are checked before the shape is built, so an oversized request never allocates its chunk set
+            shape = switch (args[2].toLowerCase()) {
+                case "square" -> AnchorShape.square(sizeArgument(args, 3, maxRadius));
+                case "circle" -> AnchorShape.circle(sizeArgument(args, 3, maxRadius));
+                case "rectangle" -> AnchorShape.rectangle(sizeArgument(args, 3, 2 * maxRadius + 1), sizeArgument(args, 4, 2 * maxRadius + 1));
+                case "chunk" -> {
+                    Chunk chunk = player.getLocation().getChunk();
+                    if (!player.getWorld().getName().equals(anchor.world())) {
+                        throw new IllegalArgumentException("You must be in the anchor's world");
+                    }
+                    int dx = chunk.getX() - anchor.chunkX();
+                    int dz = chunk.getZ() - anchor.chunkZ();
+                    AnchorShape current = anchorManager.getShape(anchor);
+                    if (!current.contains(dx, dz)) {
+                        yield current.withChunk(dx, dz);
+                    }
+                    if (current.getChunkCount() == 1) {
+                        throw new IllegalArgumentException("An anchor must keep at least one chunk");
+                    }
+                    yield current.withoutChunk(dx, dz);
+                }
+                case "default" -> null;
+                default -> throw new IllegalArgumentException("Invalid shape. Use square, rectangle, circle, chunk or default");
+            };
+        } catch (IllegalArgumentException e) {
+            player.sendMessage(Component.text(e.getMessage(), NamedTextColor.RED));
+            return true;
+        }
+
+        if (shape != null && shape.getExtent() > maxRadius) {
+            player.sendMessage(Component.text("Shapes may reach at most " + maxRadius + " chunks from the anchor", NamedTextColor.RED));
+            return true;
+        }
+
+        int chunkLimit = anchorManager.getChunkLimit(player);
+        if (!anchorManager.setAnchorShape(playerId, name, shape, chunkLimit)) {
+            player.sendMessage(Component.text("This shape would take you over your limit of " + chunkLimit + " chunks", NamedTextColor.RED));
+            return true;
+        }
+
+        chunkLoadManager.onAnchorShapeChanged(playerId, name, anchor);
+
+        AnchorShape effective = anchorManager.getShape(anchorManager.getAnchor(playerId, name));
+        player.sendMessage(Component.text()
+                .append(Component.text("Anchor '", NamedTextColor.GREEN))
+                .append(Component.text(name, NamedTextColor.YELLOW))
+                .append(Component.text("' shape set to ", NamedTextColor.GREEN))
+                .append(Component.text(effective.describe(), NamedTextColor.LIGHT_PURPLE))
+                .build());
+
+        return true;
+    }
+
+    private boolean handleSchedule(Player player, String[] args) {
+        if (args.length < 3) {
+            player.sendMessage(Component.text("Usage: /chunkanchor schedule <name> <[days] HH:MM-HH:MM[; ...]|default>", NamedTextColor.RED));
+            return true;
+        }
+
+        String name = args[1];
+        UUID playerId = player.getUniqueId();
+
+        AnchorManager.Anchor anchor = anchorManager.getAnchor(playerId, name);
+        if (anchor == null) {
+            player.sendMessage(Component.text("No anchor named '" + name + "' found", NamedTextColor.RED));
+            return true;
+        }
+
+        String spec = String.join(" ", Arrays.copyOfRange(args, 2, args.length));
+        LoadSchedule schedule;
+        try {
+            schedule = spec.equalsIgnoreCase("default") ? null : LoadSchedule.parse(spec);
+        } catch (IllegalArgumentException e) {
+            player.sendMessage(Component.text(e.getMessage(), NamedTextColor.RED));
+            return true;
+        }
+
+        anchorManager.setAnchorSchedule(playerId, name, schedule);
+        chunkLoadManager.onAnchorScheduleChanged(playerId, name);
+
+        AnchorManager.Anchor updated = anchorManager.getAnchor(playerId, name);
+        TextComponent.Builder message = Component.text()
+                .append(Component.text("Anchor '", NamedTextColor.GREEN))
+                .append(Component.text(name, NamedTextColor.YELLOW))
+                .append(Component.text("' load window set to ", NamedTextColor.GREEN))
+                .append(Component.text(describeWindow(updated), NamedTextColor.LIGHT_PURPLE));
+        LoadMode effectiveMode = updated.loadMode() == LoadMode.DEFAULT ? defaultLoadMode : updated.loadMode();
+        if (effectiveMode != LoadMode.SCHEDULED) {
+            message.append(Component.text(" (applies in SCHEDULED mode)", NamedTextColor.GRAY));
+        }
+        player.sendMessage(message.build());
+
+        return true;
+    }
+
+    private String describeWindow(AnchorManager.Anchor anchor) {
+        LoadWindowScheduler scheduler = chunkLoadManager.getWindowScheduler();
+        LoadSchedule schedule = scheduler.getSchedule(anchor);
+        if (schedule == null) {
+            return "no load window";
+        }
+        int minutes = scheduler.getMinutesUntilChange(anchor);
+        String state = scheduler.isOpen(anchor) ? "open" : "closed";
+        if (minutes < 0) {
+            return schedule.getSpec() + ", always " + state;
+        }
+        return schedule.getSpec() + ", " + state + ", " + (scheduler.isOpen(anchor) ? "closes" : "opens")
+                + " in " + (minutes / 60) + "h " + (minutes % 60) + "m";
+    }
+
+    private int sizeArgument(String[] args, int index, int max) {
+        int size = intArgument(args, index);
+        if (size > max) {
+            throw new IllegalArgumentException("Shapes may reach at most " + anchorManager.getMaxShapeRadius() + " chunks from the anchor");
+        }
+        return size;
+    }
+
+    private static int intArgument(String[] args, int index) {
+        if (args.length <= index) {
+            throw new IllegalArgumentException("Missing size for shape " + args[2]);
+        }
+        try {
+            return Integer.parseInt(args[index]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + args[index] + "' is not a whole number");
+        }
+    }
+
     private boolean handleEnable(Player player, String[] args) {
         if (args.length < 2) {
             player.sendMessage(Component.text("Usage: /chunkanchor enable <name>", NamedTextColor.RED));
@@ -274,12 +486,18 @@ public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        if (anchorManager.getEnabledAnchorCount(playerId) >= anchorManager.getLimit()) {
+        if (anchorManager.isAtAnchorLimit(playerId)) {
             player.sendMessage(Component.text("Cannot enable anchor: you have reached the maximum of " + anchorManager.getLimit() + " active anchors", NamedTextColor.RED));
             return true;
         }
 
-        if (!anchorManager.setAnchorEnabled(playerId, name, true)) {
+        int chunkLimit = anchorManager.getChunkLimit(player);
+        if (anchorManager.exceedsChunkLimit(playerId, anchor, chunkLimit)) {
+            sendChunkLimitReached(player, anchor, chunkLimit);
+            return true;
+        }
+
+        if (!anchorManager.setAnchorEnabled(playerId, name, true, chunkLimit)) {
             player.sendMessage(Component.text("Failed to enable anchor", NamedTextColor.RED));
             return true;
         }
@@ -331,6 +549,208 @@ public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    private boolean handleHere(Player player) {
+        if (!player.hasPermission(ADMIN_PERMISSION)) {
+            player.sendMessage(Component.text("You don't have permission to use this command", NamedTextColor.RED));
+            return true;
+        }
+
+        Chunk chunk = player.getLocation().getChunk();
+        String world = player.getWorld().getName();
+        List<AnchorKey> covering = anchorManager.getAnchorsCovering(world, chunk.getX(), chunk.getZ());
+
+        if (covering.isEmpty()) {
+            player.sendMessage(Component.text("No anchors cover chunk " + chunk.getX() + ", " + chunk.getZ(), NamedTextColor.YELLOW));
+            return true;
+        }
+
+        player.sendMessage(Component.text()
+                .append(Component.text("Anchors covering chunk ", NamedTextColor.GOLD))
+                .append(Component.text(chunk.getX() + ", " + chunk.getZ(), NamedTextColor.YELLOW))
+                .append(Component.text(":", NamedTextColor.GOLD))
+                .build());
+
+        for (AnchorKey key : covering) {
+            AnchorManager.Anchor anchor = anchorManager.getAnchor(key);
+            if (anchor == null) {
+                continue;
+            }
+            String ownerName = Bukkit.getOfflinePlayer(key.owner()).getName();
+
+            TextComponent.Builder builder = Component.text()
+                    .append(Component.text(" - ", NamedTextColor.GRAY))
+                    .append(Component.text(ownerName != null ? ownerName : key.owner().toString(), NamedTextColor.WHITE))
+                    .append(Component.text(":", NamedTextColor.GRAY))
+                    .append(Component.text(key.name(), NamedTextColor.YELLOW));
+
+            if (anchor.enabled()) {
+                builder.append(Component.text(" [ENABLED]", NamedTextColor.GREEN));
+            } else {
+                builder.append(Component.text(" [DISABLED]", NamedTextColor.RED));
+            }
+
+            if (chunkLoadManager.isAnchorLoaded(anchor)) {
+                builder.append(Component.text(" (loaded)", NamedTextColor.AQUA));
+            }
+
+            player.sendMessage(builder.build());
+        }
+
+        return true;
+    }
+
+    private boolean handleStats(Player player) {
+        if (!player.hasPermission(ADMIN_PERMISSION)) {
+            player.sendMessage(Component.text("You don't have permission to use this command", NamedTextColor.RED));
+            return true;
+        }
+
+        Map<LoadMode, Integer> byMode = new EnumMap<>(LoadMode.class);
+        Map<AnchorLoadState, Integer> byState = new EnumMap<>(AnchorLoadState.class);
+        int total = 0;
+        int disabled = 0;
+        for (Map<String, AnchorManager.Anchor> playerAnchors : anchorManager.getAllAnchors().values()) {
+            for (AnchorManager.Anchor anchor : playerAnchors.values()) {
+                total++;
+                byMode.merge(chunkLoadManager.getEffectiveLoadMode(anchor), 1, Integer::sum);
+                if (!anchor.enabled()) {
+                    disabled++;
+                    continue;
+                }
+                byState.merge(chunkLoadManager.getAnchorLoadState(anchor), 1, Integer::sum);
+            }
+        }
+
+        player.sendMessage(Component.text("ChunkAnchor Stats:", NamedTextColor.GOLD));
+        player.sendMessage(statLine("Anchors", total + " (" + disabled + " disabled)"));
+        player.sendMessage(statLine("By mode", joinCounts(byMode)));
+        player.sendMessage(statLine("By state", joinCounts(byState)));
+
+        ChunkTicketIndex ticketIndex = chunkLoadManager.getTicketIndex();
+        StringJoiner perWorld = new StringJoiner(", ");
+        for (World world : ticketIndex.getWorlds()) {
+            perWorld.add(world.getName() + " " + ticketIndex.getTicketedChunkCount(world));
+        }
+        player.sendMessage(statLine("Ticketed chunks", ticketIndex.getTicketedChunkCount() + (perWorld.length() > 0 ? " (" + perWorld + ")" : "")));
+        player.sendMessage(statLine("Tickets", "+" + ticketIndex.getTicketsAdded() + " / -" + ticketIndex.getTicketsRemoved()));
+        ChunkBudget budget = chunkLoadManager.getChunkBudget();
+        if (budget.isEnabled()) {
+            StringJoiner worldBudgets = new StringJoiner(", ");
+            for (World world : ticketIndex.getWorlds()) {
+                int limit = budget.getWorldLimit(world.getName());
+                if (limit > 0) {
+                    worldBudgets.add(world.getName() + " " + budget.getReservedChunks(ticketIndex.worldId(world)) + "/" + limit);
+                }
+            }
+            String global = budget.getReservedChunks() + (budget.getMaxChunks() > 0 ? "/" + budget.getMaxChunks() : "");
+            player.sendMessage(statLine("Chunk budget", global + (worldBudgets.length() > 0 ? " (" + worldBudgets + ")" : "")
+                    + ", " + chunkLoadManager.getSuspendedAnchorCount() + " suspended"));
+        }
+        LagShedder lagShedder = chunkLoadManager.getLagShedder();
+        if (lagShedder.isEnabled()) {
+            player.sendMessage(statLine("Lag shedding", String.format("%.1f ms/tick (shed above %.1f, restore below %.1f), %d anchors suspended",
+                    lagShedder.getLastMspt(), lagShedder.getShedMspt(), lagShedder.getRestoreMspt(), lagShedder.getShedAnchorCount())));
+        }
+        WorldActivationQueue worldQueue = chunkLoadManager.getWorldQueue();
+        if (worldQueue.getWaitingAnchorCount() > 0 || worldQueue.getPendingActivations() > 0) {
+            StringJoiner waitingWorlds = new StringJoiner(", ");
+            worldQueue.getWaitingWorlds().forEach((world, count) -> waitingWorlds.add(world + " " + count));
+            player.sendMessage(statLine("Waiting for worlds", worldQueue.getWaitingAnchorCount() + " anchors"
+                    + (waitingWorlds.length() > 0 ? " (" + waitingWorlds + ")" : "") + ", " + worldQueue.getPendingActivations() + " activations pending"));
+        }
+        LoadWindowScheduler windowScheduler = chunkLoadManager.getWindowScheduler();
+        if (windowScheduler.getScheduledAnchorCount() > 0) {
+            player.sendMessage(statLine("Load windows", windowScheduler.getScheduledAnchorCount() + " SCHEDULED anchors, "
+                    + windowScheduler.getPendingTransitions() + " transitions pending"));
+        }
+        player.sendMessage(statLine("Anchor load", formatLatency(metrics.getAnchorLoadLatency())));
+        player.sendMessage(statLine("Anchor unload", formatLatency(metrics.getAnchorUnloadLatency())));
+        player.sendMessage(statLine("Saves", formatLatency(metrics.getSaveLatency()) + ", " + metrics.getSavedBytes() + " bytes"
+                + (metrics.getSaveFailures() > 0 ? ", " + metrics.getSaveFailures() + " failed" : "")));
+
+        return true;
+    }
+
+    private boolean handlePriority(Player player, String[] args) {
+        if (!player.hasPermission(ADMIN_PERMISSION)) {
+            player.sendMessage(Component.text("You don't have permission to use this command", NamedTextColor.RED));
+            return true;
+        }
+
+        if (args.length < 4) {
+            player.sendMessage(Component.text("Usage: /chunkanchor priority <player> <name> <priority>", NamedTextColor.RED));
+            return true;
+        }
+
+        OfflinePlayer owner = Bukkit.getOfflinePlayerIfCached(args[1]);
+        if (owner == null) {
+            player.sendMessage(Component.text("Unknown player '" + args[1] + "'", NamedTextColor.RED));
+            return true;
+        }
+
+        int priority;
+        try {
+            priority = Integer.parseInt(args[3]);
+        } catch (NumberFormatException e) {
+            player.sendMessage(Component.text("Priority must be a whole number", NamedTextColor.RED));
+            return true;
+        }
+
+        String name = args[2];
+        if (!anchorManager.setAnchorPriority(owner.getUniqueId(), name, priority)) {
+            player.sendMessage(Component.text("No anchor named '" + name + "' found", NamedTextColor.RED));
+            return true;
+        }
+
+        chunkLoadManager.onAnchorPriorityChanged(owner.getUniqueId(), name);
+
+        player.sendMessage(Component.text()
+                .append(Component.text("Anchor '", NamedTextColor.GREEN))
+                .append(Component.text(name, NamedTextColor.YELLOW))
+                .append(Component.text("' priority set to ", NamedTextColor.GREEN))
+                .append(Component.text(priority, NamedTextColor.LIGHT_PURPLE))
+                .build());
+
+        return true;
+    }
+
+    private void sendChunkLimitReached(Player player, AnchorManager.Anchor anchor, int chunkLimit) {
+        UUID playerId = player.getUniqueId();
+        player.sendMessage(Component.text("This anchor would add " + anchorManager.getChunkCost(playerId, anchor) + " chunks, but you are using "
+                + anchorManager.getChunkUsage(playerId) + " of your " + chunkLimit + " chunks", NamedTextColor.RED));
+    }
+
+    private static Component statLine(String label, String value) {
+        return Component.text()
+                .append(Component.text("  " + label + ": ", NamedTextColor.GRAY))
+                .append(Component.text(value, NamedTextColor.WHITE))
+                .build();
+    }
+
+    private static String joinCounts(Map<? extends Enum<?>, Integer> counts) {
+        if (counts.isEmpty()) {
+            return "-";
+        }
+        StringJoiner joiner = new StringJoiner(", ");
+        counts.forEach((key, count) -> joiner.add(key.name() + " " + count));
+        return joiner.toString();
+    }
+
+    private static String formatLatency(LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return "0 samples";
+        }
+        return histogram.getCount() + " samples, mean " + formatNanos(histogram.getMeanNanos())
+                + ", p99 " + formatNanos(histogram.getPercentileNanos(99)) + ", max " + formatNanos(histogram.getMaxNanos());
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos >= 1_000_000L) {
+            return String.format("%.1fms", nanos / 1_000_000.0);
+        }
+        return String.format("%.1fus", nanos / 1_000.0);
+    }
+
     private void sendUsage(Player player) {
         player.sendMessage(Component.text("ChunkAnchor Commands:", NamedTextColor.GOLD));
         player.sendMessage(Component.text("  /chunkanchor add <name>", NamedTextColor.YELLOW)
@@ -342,11 +762,23 @@ public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
         player.sendMessage(Component.text("  /chunkanchor show <name>", NamedTextColor.YELLOW)
                 .append(Component.text(" - Visualize anchor boundaries", NamedTextColor.GRAY)));
         player.sendMessage(Component.text("  /chunkanchor mode <name> <mode>", NamedTextColor.YELLOW)
-                .append(Component.text(" - Set load mode (DEFAULT/ALWAYS/PLAYER_ONLINE)", NamedTextColor.GRAY)));
+                .append(Component.text(" - Set load mode (DEFAULT/ALWAYS/PLAYER_ONLINE/OWNER_ONLINE/SCHEDULED)", NamedTextColor.GRAY)));
+        player.sendMessage(Component.text("  /chunkanchor shape <name> <shape>", NamedTextColor.YELLOW)
+                .append(Component.text(" - Set area (square/rectangle/circle/chunk/default)", NamedTextColor.GRAY)));
+        player.sendMessage(Component.text("  /chunkanchor schedule <name> <windows>", NamedTextColor.YELLOW)
+                .append(Component.text(" - Set SCHEDULED load windows (e.g. mon-fri 01:00-07:00, or default)", NamedTextColor.GRAY)));
         player.sendMessage(Component.text("  /chunkanchor enable <name>", NamedTextColor.YELLOW)
                 .append(Component.text(" - Enable an anchor", NamedTextColor.GRAY)));
         player.sendMessage(Component.text("  /chunkanchor disable <name>", NamedTextColor.YELLOW)
                 .append(Component.text(" - Disable an anchor", NamedTextColor.GRAY)));
+        if (player.hasPermission(ADMIN_PERMISSION)) {
+            player.sendMessage(Component.text("  /chunkanchor here", NamedTextColor.YELLOW)
+                    .append(Component.text(" - List anchors covering your chunk", NamedTextColor.GRAY)));
+            player.sendMessage(Component.text("  /chunkanchor stats", NamedTextColor.YELLOW)
+                    .append(Component.text(" - Show runtime statistics", NamedTextColor.GRAY)));
+            player.sendMessage(Component.text("  /chunkanchor priority <player> <name> <priority>", NamedTextColor.YELLOW)
+                    .append(Component.text(" - Set an anchor's chunk budget priority", NamedTextColor.GRAY)));
+        }
     }
 
     @Override
@@ -356,14 +788,18 @@ public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
         }
 
         if (args.length == 1) {
-            return SUBCOMMANDS.stream()
+            List<String> subcommands = new ArrayList<>(SUBCOMMANDS);
+            if (player.hasPermission(ADMIN_PERMISSION)) {
+                subcommands.addAll(ADMIN_SUBCOMMANDS);
+            }
+            return subcommands.stream()
                     .filter(s -> s.toLowerCase().startsWith(args[0].toLowerCase()))
                     .toList();
         }
 
         if (args.length == 2) {
             String subcommand = args[0].toLowerCase();
-            if (subcommand.equals("remove") || subcommand.equals("show") || subcommand.equals("mode") || subcommand.equals("enable") || subcommand.equals("disable")) {
+            if (subcommand.equals("remove") || subcommand.equals("show") || subcommand.equals("mode") || subcommand.equals("shape") || subcommand.equals("schedule") || subcommand.equals("enable") || subcommand.equals("disable")) {
                 Set<String> anchorNames = anchorManager.getAnchorNames(player.getUniqueId());
                 return anchorNames.stream()
                         .filter(s -> s.toLowerCase().startsWith(args[1].toLowerCase()))
@@ -378,6 +814,11 @@ public class ChunkAnchorCommand implements CommandExecutor, TabCompleter {
                         .filter(s -> s.toLowerCase().startsWith(args[2].toLowerCase()))
                         .toList();
             }
+            if (subcommand.equals("shape")) {
+                return SHAPES.stream()
+                        .filter(s -> s.startsWith(args[2].toLowerCase()))
+                        .toList();
+            }
         }
 
         return Collections.emptyList();
@@ -6,26 +6,34 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import pl.psalkowski.chunkanchor.manager.ChunkLoadManager;
+import pl.psalkowski.chunkanchor.visualization.AnchorVisualizer;
 
 public class PlayerConnectionListener implements Listener {
 
     private final ChunkLoadManager chunkLoadManager;
+    private final AnchorVisualizer visualizer;
 
-    public PlayerConnectionListener(ChunkLoadManager chunkLoadManager) {
+    public PlayerConnectionListener(ChunkLoadManager chunkLoadManager, AnchorVisualizer visualizer) {
         this.chunkLoadManager = chunkLoadManager;
+        this.visualizer = visualizer;
     }
 
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
-        if (Bukkit.getOnlinePlayers().size() == 1 && !chunkLoadManager.isPlayerOnlineChunksLoaded()) {
-            chunkLoadManager.loadPlayerOnlineAnchors();
+        chunkLoadManager.getPriorities().onJoin(event.getPlayer());
+        chunkLoadManager.onOwnerJoin(event.getPlayer().getUniqueId());
+        if (Bukkit.getOnlinePlayers().size() == 1) {
+            chunkLoadManager.onFirstPlayerJoin();
         }
     }
 
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
-        if (Bukkit.getOnlinePlayers().size() == 1 && chunkLoadManager.isPlayerOnlineChunksLoaded()) {
-            chunkLoadManager.unloadPlayerOnlineAnchors();
+        visualizer.cancelShows(event.getPlayer().getUniqueId());
+        chunkLoadManager.getPriorities().onQuit(event.getPlayer().getUniqueId());
+        chunkLoadManager.onOwnerQuit(event.getPlayer().getUniqueId());
+        if (Bukkit.getOnlinePlayers().size() == 1) {
+            chunkLoadManager.onLastPlayerQuit();
         }
     }
 }
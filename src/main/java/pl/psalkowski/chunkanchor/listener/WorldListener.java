@@ -0,0 +1,27 @@
+package pl.psalkowski.chunkanchor.listener;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import pl.psalkowski.chunkanchor.manager.ChunkLoadManager;
+
+public class WorldListener implements Listener {
+
+    private final ChunkLoadManager chunkLoadManager;
+
+    public WorldListener(ChunkLoadManager chunkLoadManager) {
+        this.chunkLoadManager = chunkLoadManager;
+    }
+
+    @EventHandler
+    public void onWorldLoad(WorldLoadEvent event) {
+        chunkLoadManager.onWorldLoad(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        chunkLoadManager.onWorldUnload(event.getWorld());
+    }
+}
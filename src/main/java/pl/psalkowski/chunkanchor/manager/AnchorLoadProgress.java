@@ -0,0 +1,167 @@
+package pl.psalkowski.chunkanchor.manager;
+
+import org.bukkit.World;
+import pl.psalkowski.chunkanchor.metrics.AnchorChunksLoadedEvent;
+import pl.psalkowski.chunkanchor.model.AnchorLoadState;
+import pl.psalkowski.chunkanchor.model.AnchorShape;
+
+import java.util.BitSet;
+
+public class AnchorLoadProgress {
+
+    private final World world;
+    private final int worldId;
+    private final int centerX;
+    private final int centerZ;
+    private final AnchorShape shape;
+    private final int totalChunks;
+    private final BitSet ticketed;
+    private int nextRequest;
+    // Allocated on the first failed load; most anchors never need it
+    private byte[] loadAttempts;
+    // Only the global thread writes these; they are volatile for status reads from other threads
+    private volatile int ticketedCount;
+    private volatile int failedCount;
+    private volatile boolean cancelled;
+    // Begun when the anchor is queued; the load queue commits it once every chunk has loaded or failed
+    private AnchorChunksLoadedEvent loadEvent;
+    private long loadStart;
+
+    AnchorLoadProgress(World world, int worldId, int centerX, int centerZ, AnchorShape shape) {
+        this.world = world;
+        this.worldId = worldId;
+        this.centerX = centerX;
+        this.centerZ = centerZ;
+        this.shape = shape;
+        this.totalChunks = shape.getChunkCount();
+        this.ticketed = new BitSet(totalChunks);
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    int getWorldId() {
+        return worldId;
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public int getLoadedChunks() {
+        return ticketedCount;
+    }
+
+    public boolean isComplete() {
+        return ticketedCount == totalChunks;
+    }
+
+    public int getFailedChunks() {
+        return failedCount;
+    }
+
+    public boolean isSettled() {
+        return cancelled || ticketedCount + failedCount >= totalChunks;
+    }
+
+    public AnchorLoadState getState() {
+        if (cancelled) {
+            return AnchorLoadState.UNLOADED;
+        }
+        if (isComplete()) {
+            return AnchorLoadState.LOADED;
+        }
+        return failedCount > 0 && isSettled() ? AnchorLoadState.FAILED : AnchorLoadState.PENDING;
+    }
+
+    public AnchorShape getShape() {
+        return shape;
+    }
+
+    int chunkX(int index) {
+        return centerX + shape.dx(index);
+    }
+
+    int chunkZ(int index) {
+        return centerZ + shape.dz(index);
+    }
+
+    int indexOf(int chunkX, int chunkZ) {
+        return shape.indexOf(chunkX - centerX, chunkZ - centerZ);
+    }
+
+    boolean covers(int otherWorldId, int chunkX, int chunkZ) {
+        return otherWorldId == worldId && indexOf(chunkX, chunkZ) >= 0;
+    }
+
+    boolean hasMoreRequests() {
+        while (nextRequest < totalChunks && ticketed.get(nextRequest)) {
+            nextRequest++;
+        }
+        return !cancelled && nextRequest < totalChunks;
+    }
+
+    int nextRequest() {
+        return nextRequest++;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isTicketed(int index) {
+        return ticketed.get(index);
+    }
+
+    void markTicketed(int index) {
+        if (!ticketed.get(index)) {
+            ticketed.set(index);
+            ticketedCount++;
+        }
+    }
+
+    /**
+     * Returns the number of failed loads of the chunk so far, including this one.
+     */
+    int recordFailedAttempt(int index) {
+        if (loadAttempts == null) {
+            loadAttempts = new byte[totalChunks];
+        }
+        return ++loadAttempts[index];
+    }
+
+    void markFailed() {
+        failedCount++;
+    }
+
+    void beginLoad(AnchorChunksLoadedEvent event) {
+        event.begin();
+        loadEvent = event;
+        loadStart = System.nanoTime();
+    }
+
+    long getLoadStart() {
+        return loadStart;
+    }
+
+    /**
+     * Returns the load event the first time it is called after the load settles, {@code null} otherwise.
+     */
+    AnchorChunksLoadedEvent takeLoadEvent() {
+        if (cancelled || !isSettled()) {
+            return null;
+        }
+        AnchorChunksLoadedEvent event = loadEvent;
+        loadEvent = null;
+        return event;
+    }
+
+    BitSet ticketedChunks() {
+        return ticketed;
+    }
+}
@@ -3,21 +3,44 @@ package pl.psalkowski.chunkanchor.manager;
 import org.bukkit.World;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.permissions.Permissible;
 import org.bukkit.plugin.Plugin;
 
+import pl.psalkowski.chunkanchor.metrics.AnchorMetrics;
+import pl.psalkowski.chunkanchor.metrics.AnchorStoreLoadEvent;
+import pl.psalkowski.chunkanchor.model.AnchorKey;
+import pl.psalkowski.chunkanchor.model.AnchorShape;
 import pl.psalkowski.chunkanchor.model.LoadMode;
+import pl.psalkowski.chunkanchor.model.LoadSchedule;
+import pl.psalkowski.chunkanchor.storage.AnchorStore;
+import pl.psalkowski.chunkanchor.storage.JournalAnchorStore;
+import pl.psalkowski.chunkanchor.storage.SqliteAnchorStore;
+import pl.psalkowski.chunkanchor.storage.YamlAnchorStore;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class AnchorManager {
 
-    public record Anchor(String world, int x, int z, LoadMode loadMode, boolean enabled) {
+    /**
+     * A {@code null} shape means the server's {@code chunk-radius} square; see {@link #getShape(Anchor)}.
+     * A {@code null} schedule means the server's {@code scheduling.default-schedule}.
+     */
+    public record Anchor(String world, int x, int z, LoadMode loadMode, boolean enabled, int priority, AnchorShape shape,
+                         LoadSchedule schedule, int id) {
         public Anchor(String world, int x, int z) {
-            this(world, x, z, LoadMode.DEFAULT, true);
+            this(world, x, z, LoadMode.DEFAULT, true, 0, null, null, 0);
+        }
+
+        public Anchor(String world, int x, int z, LoadMode loadMode, boolean enabled) {
+            this(world, x, z, loadMode, enabled, 0, null, null, 0);
+        }
+
+        public Anchor(String world, int x, int z, LoadMode loadMode, boolean enabled, int priority, AnchorShape shape) {
+            this(world, x, z, loadMode, enabled, priority, shape, null, 0);
+        }
+
+        public Anchor(String world, int x, int z, LoadMode loadMode, boolean enabled, int priority, AnchorShape shape, LoadSchedule schedule) {
+            this(world, x, z, loadMode, enabled, priority, shape, schedule, 0);
         }
 
         public int chunkX() {
@@ -29,202 +52,363 @@ public class AnchorManager {
         }
 
         public Anchor withLoadMode(LoadMode newMode) {
-            return new Anchor(world, x, z, newMode, enabled);
+            return new Anchor(world, x, z, newMode, enabled, priority, shape, schedule, id);
         }
 
         public Anchor withEnabled(boolean newEnabled) {
-            return new Anchor(world, x, z, loadMode, newEnabled);
+            return new Anchor(world, x, z, loadMode, newEnabled, priority, shape, schedule, id);
+        }
+
+        public Anchor withId(int newId) {
+            return new Anchor(world, x, z, loadMode, enabled, priority, shape, schedule, newId);
+        }
+
+        public Anchor withPriority(int newPriority) {
+            return new Anchor(world, x, z, loadMode, enabled, newPriority, shape, schedule, id);
+        }
+
+        public Anchor withShape(AnchorShape newShape) {
+            return new Anchor(world, x, z, loadMode, enabled, priority, newShape, schedule, id);
+        }
+
+        public Anchor withSchedule(LoadSchedule newSchedule) {
+            return new Anchor(world, x, z, loadMode, enabled, priority, shape, newSchedule, id);
         }
     }
 
     private final Plugin plugin;
-    private final File dataFile;
     private final int limit;
-    private final Map<UUID, Map<String, Anchor>> playerAnchors = new ConcurrentHashMap<>();
-
-    public AnchorManager(Plugin plugin, FileConfiguration config) {
+    private final int defaultChunkLimit;
+    private final Map<String, Integer> chunkLimitTiers = new LinkedHashMap<>();
+    private final int chunkRadius;
+    private final int maxShapeRadius;
+    private final AnchorShape defaultShape;
+    private volatile AnchorSnapshot snapshot = AnchorSnapshot.EMPTY;
+    private final BitSet usedIds = new BitSet();
+    private final AnchorStore store;
+    private final AnchorSpatialIndex spatialIndex;
+    private final OwnerChunkUsage chunkUsage;
+
+    public AnchorManager(Plugin plugin, FileConfiguration config, AnchorMetrics metrics) {
         this.plugin = plugin;
-        this.dataFile = new File(plugin.getDataFolder(), "anchors.yml");
-        this.limit = config.getInt("default-limit", 3);
+        this.limit = config.getInt("default-limit", 0);
+        this.defaultChunkLimit = Math.max(0, config.getInt("chunk-limit.default", 147));
+        ConfigurationSection tiers = config.getConfigurationSection("chunk-limit.tiers");
+        if (tiers != null) {
+            for (String permission : tiers.getKeys(false)) {
+                chunkLimitTiers.put(permission, tiers.getInt(permission, 0));
+            }
+        }
+        this.chunkRadius = config.getInt("chunk-radius", 3);
+        this.store = createStore(plugin, config, metrics);
+        this.maxShapeRadius = Math.min(AnchorShape.MAX_EXTENT, Math.max(0, config.getInt("max-shape-radius", 8)));
+        this.defaultShape = AnchorShape.square(Math.min(AnchorShape.MAX_EXTENT, Math.max(0, chunkRadius)));
+        this.spatialIndex = new AnchorSpatialIndex();
+        this.chunkUsage = new OwnerChunkUsage();
         load();
     }
 
     public boolean addAnchor(UUID playerId, String name, World world, int x, int z) {
-        Map<String, Anchor> anchors = playerAnchors.computeIfAbsent(playerId, k -> new ConcurrentHashMap<>());
+        return addAnchor(playerId, name, world, x, z, 0);
+    }
 
-        if (getEnabledAnchorCount(playerId) >= limit) {
+    public synchronized boolean addAnchor(UUID playerId, String name, World world, int x, int z, int chunkLimit) {
+        if (isAtAnchorLimit(playerId)) {
             return false;
         }
 
-        if (anchors.containsKey(name)) {
+        if (snapshot.get(playerId, name) != null) {
             return false;
         }
 
-        anchors.put(name, new Anchor(world.getName(), x, z));
-        save();
+        Anchor anchor = new Anchor(world.getName(), x, z);
+        if (exceedsChunkLimit(playerId, anchor, chunkLimit)) {
+            return false;
+        }
+
+        anchor = anchor.withId(allocateId());
+        snapshot = snapshot.withAnchor(playerId, name, anchor);
+        spatialIndex.add(new AnchorKey(playerId, name), anchor, defaultShape);
+        chunkUsage.add(playerId, anchor, defaultShape);
+        store.anchorPut(playerId, name, anchor);
         return true;
     }
 
-    public boolean removeAnchor(UUID playerId, String name) {
-        Map<String, Anchor> anchors = playerAnchors.get(playerId);
-        if (anchors == null || !anchors.containsKey(name)) {
+    public synchronized boolean removeAnchor(UUID playerId, String name) {
+        Anchor removed = snapshot.get(playerId, name);
+        if (removed == null) {
             return false;
         }
 
-        anchors.remove(name);
-        if (anchors.isEmpty()) {
-            playerAnchors.remove(playerId);
+        snapshot = snapshot.withoutAnchor(playerId, name);
+        usedIds.clear(removed.id());
+        if (removed.enabled()) {
+            chunkUsage.remove(playerId, removed, getShape(removed));
         }
-        save();
+        spatialIndex.remove(new AnchorKey(playerId, name), removed, getShape(removed));
+        store.anchorRemoved(playerId, name);
         return true;
     }
 
     public Anchor getAnchor(UUID playerId, String name) {
-        Map<String, Anchor> anchors = playerAnchors.get(playerId);
-        if (anchors == null) {
-            return null;
-        }
-        return anchors.get(name);
+        return snapshot.get(playerId, name);
+    }
+
+    public Anchor getAnchor(AnchorKey key) {
+        return getAnchor(key.owner(), key.name());
+    }
+
+    public synchronized List<AnchorKey> getAnchorsCovering(String world, int chunkX, int chunkZ) {
+        return spatialIndex.getCovering(world, chunkX, chunkZ);
+    }
+
+    public synchronized List<AnchorKey> getAnchorsNear(String world, int chunkX, int chunkZ, int chunkRadius) {
+        return spatialIndex.getNear(world, chunkX, chunkZ, chunkRadius);
+    }
+
+    public synchronized boolean isChunkAnchored(String world, int chunkX, int chunkZ) {
+        return spatialIndex.anyCovering(world, chunkX, chunkZ, key -> {
+            Anchor anchor = getAnchor(key);
+            return anchor != null && anchor.enabled();
+        });
+    }
+
+    public AnchorSnapshot snapshot() {
+        return snapshot;
     }
 
     public Map<String, Anchor> getPlayerAnchors(UUID playerId) {
-        Map<String, Anchor> anchors = playerAnchors.get(playerId);
-        if (anchors == null) {
-            return Collections.emptyMap();
-        }
-        return Collections.unmodifiableMap(new HashMap<>(anchors));
+        return snapshot.owner(playerId);
     }
 
     public Map<UUID, Map<String, Anchor>> getAllAnchors() {
-        Map<UUID, Map<String, Anchor>> result = new HashMap<>();
-        playerAnchors.forEach((uuid, anchors) -> result.put(uuid, new HashMap<>(anchors)));
-        return result;
+        return snapshot.anchors();
     }
 
     public Set<String> getAnchorNames(UUID playerId) {
-        Map<String, Anchor> anchors = playerAnchors.get(playerId);
-        if (anchors == null) {
-            return Collections.emptySet();
-        }
-        return new HashSet<>(anchors.keySet());
+        return snapshot.owner(playerId).keySet();
     }
 
     public int getAnchorCount(UUID playerId) {
-        Map<String, Anchor> anchors = playerAnchors.get(playerId);
-        return anchors == null ? 0 : anchors.size();
+        return snapshot.owner(playerId).size();
     }
 
     public int getEnabledAnchorCount(UUID playerId) {
-        Map<String, Anchor> anchors = playerAnchors.get(playerId);
-        if (anchors == null) {
-            return 0;
+        int count = 0;
+        for (Anchor anchor : snapshot.owner(playerId).values()) {
+            if (anchor.enabled()) {
+                count++;
+            }
         }
-        return (int) anchors.values().stream().filter(Anchor::enabled).count();
+        return count;
     }
 
     public int getLimit() {
         return limit;
     }
 
-    public boolean setAnchorLoadMode(UUID playerId, String name, LoadMode loadMode) {
-        Map<String, Anchor> anchors = playerAnchors.get(playerId);
-        if (anchors == null || !anchors.containsKey(name)) {
+    public boolean isAtAnchorLimit(UUID playerId) {
+        return limit > 0 && getEnabledAnchorCount(playerId) >= limit;
+    }
+
+    /**
+     * Highest chunk limit among the tiers the player has permission for, or {@code chunk-limit.default}.
+     * 0 means unlimited.
+     */
+    public int getChunkLimit(Permissible player) {
+        int chunkLimit = defaultChunkLimit;
+        for (Map.Entry<String, Integer> tier : chunkLimitTiers.entrySet()) {
+            if (player.hasPermission(tier.getKey())) {
+                if (tier.getValue() == 0) {
+                    return 0;
+                }
+                chunkLimit = chunkLimit == 0 ? chunkLimit : Math.max(chunkLimit, tier.getValue());
+            }
+        }
+        return chunkLimit;
+    }
+
+    public synchronized int getChunkUsage(UUID playerId) {
+        return chunkUsage.getUsage(playerId);
+    }
+
+    public synchronized int getChunkCost(UUID playerId, Anchor anchor) {
+        return chunkUsage.cost(playerId, anchor, getShape(anchor));
+    }
+
+    public synchronized boolean exceedsChunkLimit(UUID playerId, Anchor anchor, int chunkLimit) {
+        return chunkLimit > 0 && chunkUsage.getUsage(playerId) + chunkUsage.cost(playerId, anchor, getShape(anchor)) > chunkLimit;
+    }
+
+    public int getChunkRadius() {
+        return chunkRadius;
+    }
+
+    public int getMaxShapeRadius() {
+        return maxShapeRadius;
+    }
+
+    public AnchorShape getDefaultShape() {
+        return defaultShape;
+    }
+
+    public AnchorShape getShape(Anchor anchor) {
+        return anchor.shape() != null ? anchor.shape() : defaultShape;
+    }
+
+    /**
+     * Other anchors sharing at least one chunk with the given anchor.
+     */
+    public synchronized Set<AnchorKey> getOverlappingAnchors(AnchorKey key) {
+        Anchor anchor = getAnchor(key);
+        if (anchor == null) {
+            return Set.of();
+        }
+        AnchorShape shape = getShape(anchor);
+        Set<AnchorKey> overlapping = new HashSet<>();
+        for (int i = 0; i < shape.getChunkCount(); i++) {
+            overlapping.addAll(spatialIndex.getCovering(anchor.world(), anchor.chunkX() + shape.dx(i), anchor.chunkZ() + shape.dz(i)));
+        }
+        overlapping.remove(key);
+        return overlapping;
+    }
+
+    public void flush() {
+        store.close();
+    }
+
+    public synchronized boolean setAnchorLoadMode(UUID playerId, String name, LoadMode loadMode) {
+        Anchor oldAnchor = snapshot.get(playerId, name);
+        if (oldAnchor == null) {
             return false;
         }
-        Anchor oldAnchor = anchors.get(name);
-        anchors.put(name, oldAnchor.withLoadMode(loadMode));
-        save();
+        snapshot = snapshot.withAnchor(playerId, name, oldAnchor.withLoadMode(loadMode));
+        store.loadModeChanged(playerId, name, loadMode);
         return true;
     }
 
     public boolean setAnchorEnabled(UUID playerId, String name, boolean enabled) {
-        Map<String, Anchor> anchors = playerAnchors.get(playerId);
-        if (anchors == null || !anchors.containsKey(name)) {
+        return setAnchorEnabled(playerId, name, enabled, 0);
+    }
+
+    public synchronized boolean setAnchorEnabled(UUID playerId, String name, boolean enabled, int chunkLimit) {
+        Anchor oldAnchor = snapshot.get(playerId, name);
+        if (oldAnchor == null) {
             return false;
         }
-        Anchor oldAnchor = anchors.get(name);
         if (oldAnchor.enabled() == enabled) {
             return true;
         }
-        if (enabled && getEnabledAnchorCount(playerId) >= limit) {
+        if (enabled && (isAtAnchorLimit(playerId) || exceedsChunkLimit(playerId, oldAnchor, chunkLimit))) {
             return false;
         }
-        anchors.put(name, oldAnchor.withEnabled(enabled));
-        save();
+        if (enabled) {
+            chunkUsage.add(playerId, oldAnchor, getShape(oldAnchor));
+        } else {
+            chunkUsage.remove(playerId, oldAnchor, getShape(oldAnchor));
+        }
+        snapshot = snapshot.withAnchor(playerId, name, oldAnchor.withEnabled(enabled));
+        store.enabledChanged(playerId, name, enabled);
         return true;
     }
 
-    private void load() {
-        if (!dataFile.exists()) {
-            return;
-        }
-
-        FileConfiguration data = YamlConfiguration.loadConfiguration(dataFile);
-        ConfigurationSection playersSection = data.getConfigurationSection("players");
-        if (playersSection == null) {
-            return;
-        }
-
-        for (String uuidStr : playersSection.getKeys(false)) {
-            try {
-                UUID uuid = UUID.fromString(uuidStr);
-                ConfigurationSection playerSection = playersSection.getConfigurationSection(uuidStr);
-                if (playerSection == null) continue;
-
-                Map<String, Anchor> anchors = new ConcurrentHashMap<>();
-                for (String anchorName : playerSection.getKeys(false)) {
-                    ConfigurationSection anchorSection = playerSection.getConfigurationSection(anchorName);
-                    if (anchorSection == null) continue;
-
-                    String world = anchorSection.getString("world");
-                    int x = anchorSection.getInt("x");
-                    int z = anchorSection.getInt("z");
-                    String loadModeStr = anchorSection.getString("load-mode", "DEFAULT");
-                    LoadMode loadMode;
-                    try {
-                        loadMode = LoadMode.valueOf(loadModeStr);
-                    } catch (IllegalArgumentException e) {
-                        loadMode = LoadMode.DEFAULT;
-                    }
-                    boolean enabled = anchorSection.getBoolean("enabled", true);
+    public synchronized boolean setAnchorPriority(UUID playerId, String name, int priority) {
+        Anchor oldAnchor = snapshot.get(playerId, name);
+        if (oldAnchor == null) {
+            return false;
+        }
+        snapshot = snapshot.withAnchor(playerId, name, oldAnchor.withPriority(priority));
+        store.priorityChanged(playerId, name, priority);
+        return true;
+    }
 
-                    if (world != null) {
-                        anchors.put(anchorName, new Anchor(world, x, z, loadMode, enabled));
-                    }
-                }
+    /**
+     * Replaces the anchor's load window; {@code null} restores the server default.
+     */
+    public synchronized boolean setAnchorSchedule(UUID playerId, String name, LoadSchedule schedule) {
+        Anchor oldAnchor = snapshot.get(playerId, name);
+        if (oldAnchor == null) {
+            return false;
+        }
+        snapshot = snapshot.withAnchor(playerId, name, oldAnchor.withSchedule(schedule));
+        store.scheduleChanged(playerId, name, schedule);
+        return true;
+    }
 
-                if (!anchors.isEmpty()) {
-                    playerAnchors.put(uuid, anchors);
-                }
-            } catch (IllegalArgumentException e) {
-                plugin.getLogger().warning("Invalid player UUID in anchors.yml: " + uuidStr);
+    /**
+     * Replaces the anchor's shape; {@code null} restores the server default. Fails if the new shape
+     * would take an enabled anchor's owner over {@code chunkLimit} (0 = unlimited).
+     */
+    public synchronized boolean setAnchorShape(UUID playerId, String name, AnchorShape shape, int chunkLimit) {
+        Anchor oldAnchor = snapshot.get(playerId, name);
+        if (oldAnchor == null) {
+            return false;
+        }
+        Anchor newAnchor = oldAnchor.withShape(shape);
+        AnchorShape oldShape = getShape(oldAnchor);
+        AnchorShape newShape = getShape(newAnchor);
+        if (oldAnchor.enabled()) {
+            chunkUsage.remove(playerId, oldAnchor, oldShape);
+            if (chunkLimit > 0 && chunkUsage.getUsage(playerId) + chunkUsage.cost(playerId, newAnchor, newShape) > chunkLimit) {
+                chunkUsage.add(playerId, oldAnchor, oldShape);
+                return false;
             }
+            chunkUsage.add(playerId, newAnchor, newShape);
         }
+        AnchorKey key = new AnchorKey(playerId, name);
+        spatialIndex.remove(key, oldAnchor, oldShape);
+        spatialIndex.add(key, newAnchor, newShape);
+        snapshot = snapshot.withAnchor(playerId, name, newAnchor);
+        store.shapeChanged(playerId, name, shape);
+        return true;
+    }
 
-        int totalAnchors = playerAnchors.values().stream().mapToInt(Map::size).sum();
-        plugin.getLogger().info("Loaded " + totalAnchors + " anchors for " + playerAnchors.size() + " players");
+    private AnchorStore createStore(Plugin plugin, FileConfiguration config, AnchorMetrics metrics) {
+        String type = config.getString("storage.type", "journal").toLowerCase(Locale.ROOT);
+        return switch (type) {
+            case "yaml" -> new YamlAnchorStore(plugin, config, metrics, this::getAllAnchors);
+            case "sqlite" -> new SqliteAnchorStore(plugin, config, metrics);
+            case "journal" -> new JournalAnchorStore(plugin, config, metrics, this::getAllAnchors);
+            default -> {
+                plugin.getLogger().warning("Invalid storage.type in config: " + type + ", using journal");
+                yield new JournalAnchorStore(plugin, config, metrics, this::getAllAnchors);
+            }
+        };
     }
 
-    private void save() {
-        FileConfiguration data = new YamlConfiguration();
+    private int allocateId() {
+        int id = usedIds.nextClearBit(1);
+        usedIds.set(id);
+        return id;
+    }
 
-        playerAnchors.forEach((uuid, anchors) -> {
-            String basePath = "players." + uuid.toString();
-            anchors.forEach((name, anchor) -> {
-                String anchorPath = basePath + "." + name;
-                data.set(anchorPath + ".world", anchor.world());
-                data.set(anchorPath + ".x", anchor.x());
-                data.set(anchorPath + ".z", anchor.z());
-                data.set(anchorPath + ".load-mode", anchor.loadMode().name());
-                data.set(anchorPath + ".enabled", anchor.enabled());
-            });
+    private void load() {
+        AnchorStoreLoadEvent event = new AnchorStoreLoadEvent();
+        event.begin();
+        Map<UUID, Map<String, Anchor>> stored = store.load();
+        event.end();
+
+        Map<UUID, Map<String, Anchor>> loaded = new HashMap<>();
+        stored.forEach((uuid, anchors) -> {
+            Map<String, Anchor> withIds = new HashMap<>();
+            anchors.forEach((name, anchor) -> withIds.put(name, anchor.withId(allocateId())));
+            loaded.put(uuid, withIds);
         });
-
-        try {
-            plugin.getDataFolder().mkdirs();
-            data.save(dataFile);
-        } catch (IOException e) {
-            plugin.getLogger().severe("Failed to save anchors: " + e.getMessage());
+        snapshot = AnchorSnapshot.of(loaded);
+        if (event.shouldCommit()) {
+            event.backend = store.getClass().getSimpleName();
+            event.ownerCount = snapshot.anchors().size();
+            event.anchorCount = snapshot.anchorCount();
+            event.commit();
         }
+        snapshot.anchors().forEach((uuid, anchors) ->
+                anchors.forEach((name, anchor) -> {
+                    spatialIndex.add(new AnchorKey(uuid, name), anchor, getShape(anchor));
+                    if (anchor.enabled()) {
+                        chunkUsage.add(uuid, anchor, getShape(anchor));
+                    }
+                }));
+
+        plugin.getLogger().info("Loaded " + snapshot.anchorCount() + " anchors for " + snapshot.anchors().size() + " players");
     }
 }
@@ -0,0 +1,167 @@
+package pl.psalkowski.chunkanchor.manager;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import pl.psalkowski.chunkanchor.model.AnchorKey;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Orders anchors for the chunk budget: explicit anchor priority first, then the owner's permission
+ * tier, then how recently the owner was online, then owner and anchor name so that the order is
+ * stable.
+ * <p>
+ * Permissions can only be checked for online players, so each owner's tier is saved to
+ * {@code owner-tiers.yml} when they join and used for their anchors while they are offline. The file
+ * is written in the background, batched like anchor saves by {@code storage.save-delay-ms}.
+ */
+public class AnchorPriorities {
+
+    /**
+     * An anchor's place in the order, taken once before sorting so that comparisons never look up
+     * players or permissions. Higher ranks are kept loaded first.
+     */
+    public record Rank(int priority, int tier, long lastSeen, UUID owner, String name) implements Comparable<Rank> {
+
+        @Override
+        public int compareTo(Rank other) {
+            int result = Integer.compare(priority, other.priority);
+            if (result != 0) {
+                return result;
+            }
+            result = Integer.compare(tier, other.tier);
+            if (result != 0) {
+                return result;
+            }
+            result = Long.compare(lastSeen, other.lastSeen);
+            if (result != 0) {
+                return result;
+            }
+            result = other.owner.compareTo(owner);
+            return result != 0 ? result : other.name.compareTo(name);
+        }
+    }
+
+    private final Plugin plugin;
+    private final File tiersFile;
+    private final Map<String, Integer> tierPermissions = new LinkedHashMap<>();
+    private final Map<UUID, Integer> ownerTiers = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> lastSeen = new ConcurrentHashMap<>();
+    private final long saveDelayMillis;
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+    private final ScheduledThreadPoolExecutor executor;
+
+    public AnchorPriorities(Plugin plugin, FileConfiguration config) {
+        this.plugin = plugin;
+        this.tiersFile = new File(plugin.getDataFolder(), "owner-tiers.yml");
+        this.saveDelayMillis = config.getLong("storage.save-delay-ms", 2000);
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ChunkAnchor-Tiers");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // close() writes a pending save itself
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        ConfigurationSection tiers = config.getConfigurationSection("chunk-budget.priority-tiers");
+        if (tiers != null) {
+            for (String permission : tiers.getKeys(false)) {
+                tierPermissions.put(permission, tiers.getInt(permission, 0));
+            }
+        }
+        if (!tierPermissions.isEmpty()) {
+            loadTiers();
+        }
+    }
+
+    public void onJoin(Player player) {
+        int tier = 0;
+        for (Map.Entry<String, Integer> entry : tierPermissions.entrySet()) {
+            if (player.hasPermission(entry.getKey())) {
+                tier = Math.max(tier, entry.getValue());
+            }
+        }
+        // Tier 0 is the default, so only owners with a tier are kept
+        Integer previous = tier == 0 ? ownerTiers.remove(player.getUniqueId()) : ownerTiers.put(player.getUniqueId(), tier);
+        if ((previous == null ? 0 : previous) != tier && saveScheduled.compareAndSet(false, true) && !executor.isShutdown()) {
+            executor.schedule(this::saveTiers, saveDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void onQuit(UUID playerId) {
+        lastSeen.put(playerId, System.currentTimeMillis());
+    }
+
+    public int getOwnerTier(UUID playerId) {
+        return ownerTiers.getOrDefault(playerId, 0);
+    }
+
+    /**
+     * Stops the background writer and saves tier changes that were still waiting for it.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out waiting for " + tiersFile.getName() + " to be saved");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (saveScheduled.get()) {
+            saveTiers();
+        }
+    }
+
+    private void loadTiers() {
+        if (!tiersFile.exists()) {
+            return;
+        }
+        YamlConfiguration data = YamlConfiguration.loadConfiguration(tiersFile);
+        for (String key : data.getKeys(false)) {
+            try {
+                ownerTiers.put(UUID.fromString(key), data.getInt(key));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Invalid player UUID in " + tiersFile.getName() + ": " + key);
+            }
+        }
+    }
+
+    private synchronized void saveTiers() {
+        // Cleared before the snapshot so that a change made while writing schedules another save
+        saveScheduled.set(false);
+        YamlConfiguration data = new YamlConfiguration();
+        ownerTiers.forEach((playerId, tier) -> data.set(playerId.toString(), tier));
+        try {
+            data.save(tiersFile);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save " + tiersFile.getName() + ": " + e.getMessage());
+        }
+    }
+
+    Rank rank(AnchorKey key, AnchorManager.Anchor anchor) {
+        return new Rank(anchor.priority(), getOwnerTier(key.owner()), lastSeen(key.owner()), key.owner(), key.name());
+    }
+
+    private long lastSeen(UUID playerId) {
+        if (Bukkit.getPlayer(playerId) != null) {
+            return Long.MAX_VALUE;
+        }
+        return lastSeen.computeIfAbsent(playerId, id -> {
+            OfflinePlayer player = Bukkit.getOfflinePlayer(id);
+            return player == null ? 0L : player.getLastSeen();
+        });
+    }
+}
@@ -0,0 +1,136 @@
+package pl.psalkowski.chunkanchor.manager;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+import pl.psalkowski.chunkanchor.model.AnchorKey;
+import pl.psalkowski.chunkanchor.scheduler.TaskHandle;
+import pl.psalkowski.chunkanchor.scheduler.TaskScheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+public class AnchorRestoreScheduler {
+
+    private static final int MAX_QUEUED_ANCHORS = 4;
+    private static final long PROGRESS_LOG_INTERVAL_NANOS = 5_000_000_000L;
+
+    private final Plugin plugin;
+    private final TaskScheduler scheduler;
+    private final ChunkLoadManager chunkLoadManager;
+    private final long budgetNanos;
+    private final double backoffMspt;
+    private final Deque<AnchorKey> queue = new ArrayDeque<>();
+    private final List<AnchorLoadProgress> restored = new ArrayList<>();
+    private int totalAnchors;
+    private int completedIndex;
+    private long startedAt;
+    private long lastProgressLog;
+    private long backoffTicks;
+    private TaskHandle task;
+
+    public AnchorRestoreScheduler(Plugin plugin, FileConfiguration config, TaskScheduler scheduler, ChunkLoadManager chunkLoadManager) {
+        this.plugin = plugin;
+        this.scheduler = scheduler;
+        this.chunkLoadManager = chunkLoadManager;
+        this.budgetNanos = (long) (Math.max(0.1, config.getDouble("restore.max-ms-per-tick", 5.0)) * 1_000_000L);
+        this.backoffMspt = config.getDouble("restore.backoff-mspt", 45.0);
+    }
+
+    public void start(List<AnchorKey> anchors) {
+        if (anchors.isEmpty()) {
+            return;
+        }
+
+        queue.addAll(anchors);
+        totalAnchors += anchors.size();
+        if (task == null) {
+            startedAt = System.nanoTime();
+            lastProgressLog = startedAt;
+            plugin.getLogger().info("Restoring " + totalAnchors + " ALWAYS-mode anchors");
+            task = scheduler.runGlobalTimer(this::tick, 1L, 1L);
+        }
+    }
+
+    public void cancel() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        queue.clear();
+        restored.clear();
+        totalAnchors = 0;
+        completedIndex = 0;
+        backoffTicks = 0;
+    }
+
+    public boolean isRunning() {
+        return task != null;
+    }
+
+    public int getRemainingAnchors() {
+        return queue.size();
+    }
+
+    private void tick() {
+        long tickStart = System.nanoTime();
+
+        if (!queue.isEmpty()) {
+            if (scheduler.getAverageTickTime() > backoffMspt) {
+                backoffTicks++;
+            } else {
+                activate(tickStart);
+            }
+        }
+
+        while (completedIndex < restored.size() && restored.get(completedIndex).isSettled()) {
+            completedIndex++;
+        }
+
+        if (queue.isEmpty() && completedIndex == restored.size()) {
+            finish();
+        } else if (tickStart - lastProgressLog >= PROGRESS_LOG_INTERVAL_NANOS) {
+            lastProgressLog = tickStart;
+            logProgress();
+        }
+    }
+
+    private void activate(long tickStart) {
+        while (!queue.isEmpty() && chunkLoadManager.getLoadQueue().getPendingAnchors() < MAX_QUEUED_ANCHORS) {
+            AnchorKey key = queue.pollFirst();
+            if (chunkLoadManager.restoreAnchor(key.owner(), key.name())) {
+                AnchorLoadProgress progress = chunkLoadManager.getAnchorLoadProgress(key.owner(), key.name());
+                if (progress != null) {
+                    restored.add(progress);
+                }
+            }
+            if (System.nanoTime() - tickStart >= budgetNanos) {
+                break;
+            }
+        }
+    }
+
+    private void logProgress() {
+        int loadedChunks = 0;
+        int totalChunks = 0;
+        for (AnchorLoadProgress progress : restored) {
+            loadedChunks += progress.getLoadedChunks();
+            totalChunks += progress.getTotalChunks();
+        }
+        plugin.getLogger().info("Restoring ALWAYS-mode anchors: " + (totalAnchors - queue.size()) + "/" + totalAnchors
+                + " activated, " + loadedChunks + "/" + totalChunks + " chunks loaded");
+    }
+
+    private void finish() {
+        int totalChunks = 0;
+        for (AnchorLoadProgress progress : restored) {
+            totalChunks += progress.getLoadedChunks();
+        }
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000L;
+        plugin.getLogger().info("Restored " + restored.size() + " ALWAYS-mode anchors (" + totalChunks + " chunks) in "
+                + String.format("%.1f", elapsedMillis / 1000.0) + "s" + (backoffTicks > 0 ? ", paused for " + backoffTicks + " ticks under load" : ""));
+
+        cancel();
+    }
+}
@@ -0,0 +1,57 @@
+package pl.psalkowski.chunkanchor.manager;
+
+import pl.psalkowski.chunkanchor.manager.AnchorManager.Anchor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+public record AnchorSnapshot(long version, Map<UUID, Map<String, Anchor>> anchors, int anchorCount) {
+
+    static final AnchorSnapshot EMPTY = new AnchorSnapshot(0, Map.of(), 0);
+
+    static AnchorSnapshot of(Map<UUID, Map<String, Anchor>> anchors) {
+        Map<UUID, Map<String, Anchor>> copy = new HashMap<>();
+        int count = 0;
+        for (Map.Entry<UUID, Map<String, Anchor>> entry : anchors.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                copy.put(entry.getKey(), Map.copyOf(entry.getValue()));
+                count += entry.getValue().size();
+            }
+        }
+        return new AnchorSnapshot(1, Map.copyOf(copy), count);
+    }
+
+    public Map<String, Anchor> owner(UUID playerId) {
+        return anchors.getOrDefault(playerId, Map.of());
+    }
+
+    public Anchor get(UUID playerId, String name) {
+        Map<String, Anchor> ownerAnchors = anchors.get(playerId);
+        return ownerAnchors == null ? null : ownerAnchors.get(name);
+    }
+
+    AnchorSnapshot withAnchor(UUID playerId, String name, Anchor anchor) {
+        Map<String, Anchor> ownerAnchors = new HashMap<>(owner(playerId));
+        Anchor previous = ownerAnchors.put(name, anchor);
+        return withOwner(playerId, ownerAnchors, previous == null ? 1 : 0);
+    }
+
+    AnchorSnapshot withoutAnchor(UUID playerId, String name) {
+        Map<String, Anchor> ownerAnchors = new HashMap<>(owner(playerId));
+        if (ownerAnchors.remove(name) == null) {
+            return this;
+        }
+        return withOwner(playerId, ownerAnchors, -1);
+    }
+
+    private AnchorSnapshot withOwner(UUID playerId, Map<String, Anchor> ownerAnchors, int countDelta) {
+        Map<UUID, Map<String, Anchor>> copy = new HashMap<>(anchors);
+        if (ownerAnchors.isEmpty()) {
+            copy.remove(playerId);
+        } else {
+            copy.put(playerId, Map.copyOf(ownerAnchors));
+        }
+        return new AnchorSnapshot(version + 1, Map.copyOf(copy), anchorCount + countDelta);
+    }
+}
@@ -0,0 +1,136 @@
+package pl.psalkowski.chunkanchor.manager;
+
+import pl.psalkowski.chunkanchor.model.AnchorKey;
+import pl.psalkowski.chunkanchor.model.AnchorShape;
+import pl.psalkowski.chunkanchor.util.ChunkCoords;
+import pl.psalkowski.chunkanchor.util.LongObjectMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Not thread-safe: {@link AnchorManager} holds its own lock for every read and write, and lookups
+ * return copies so callers never see a list that is being changed.
+ */
+public class AnchorSpatialIndex {
+
+    private static final int REGION_SHIFT = 5;
+
+    private record Placement(AnchorKey key, int chunkX, int chunkZ) {
+    }
+
+    private static class WorldIndex {
+        private final LongObjectMap<List<AnchorKey>> coverage = new LongObjectMap<>(256);
+        private final LongObjectMap<List<Placement>> regions = new LongObjectMap<>(16);
+    }
+
+    private final Map<String, WorldIndex> worlds = new HashMap<>();
+
+    public void add(AnchorKey key, AnchorManager.Anchor anchor, AnchorShape shape) {
+        WorldIndex index = worlds.computeIfAbsent(anchor.world(), w -> new WorldIndex());
+        int cx = anchor.chunkX();
+        int cz = anchor.chunkZ();
+
+        for (int i = 0; i < shape.getChunkCount(); i++) {
+            index.coverage.computeIfAbsent(ChunkCoords.key(cx + shape.dx(i), cz + shape.dz(i)), k -> new ArrayList<>(1)).add(key);
+        }
+        index.regions.computeIfAbsent(regionKey(cx, cz), k -> new ArrayList<>(4)).add(new Placement(key, cx, cz));
+    }
+
+    public void remove(AnchorKey key, AnchorManager.Anchor anchor, AnchorShape shape) {
+        WorldIndex index = worlds.get(anchor.world());
+        if (index == null) {
+            return;
+        }
+        int cx = anchor.chunkX();
+        int cz = anchor.chunkZ();
+
+        for (int i = 0; i < shape.getChunkCount(); i++) {
+            long chunkKey = ChunkCoords.key(cx + shape.dx(i), cz + shape.dz(i));
+            List<AnchorKey> keys = index.coverage.get(chunkKey);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                index.coverage.remove(chunkKey);
+            }
+        }
+
+        long regionKey = regionKey(cx, cz);
+        List<Placement> placements = index.regions.get(regionKey);
+        if (placements != null) {
+            placements.removeIf(placement -> placement.key().equals(key));
+            if (placements.isEmpty()) {
+                index.regions.remove(regionKey);
+            }
+        }
+
+        if (index.coverage.isEmpty()) {
+            worlds.remove(anchor.world());
+        }
+    }
+
+    public List<AnchorKey> getCovering(String world, int chunkX, int chunkZ) {
+        WorldIndex index = worlds.get(world);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        List<AnchorKey> keys = index.coverage.get(ChunkCoords.key(chunkX, chunkZ));
+        return keys == null ? Collections.emptyList() : List.copyOf(keys);
+    }
+
+    public boolean anyCovering(String world, int chunkX, int chunkZ, Predicate<AnchorKey> filter) {
+        WorldIndex index = worlds.get(world);
+        if (index == null) {
+            return false;
+        }
+        List<AnchorKey> keys = index.coverage.get(ChunkCoords.key(chunkX, chunkZ));
+        if (keys == null) {
+            return false;
+        }
+        for (AnchorKey key : keys) {
+            if (filter.test(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<AnchorKey> getNear(String world, int chunkX, int chunkZ, int radius) {
+        WorldIndex index = worlds.get(world);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+
+        List<AnchorKey> result = new ArrayList<>();
+        int minRegionX = (chunkX - radius) >> REGION_SHIFT;
+        int maxRegionX = (chunkX + radius) >> REGION_SHIFT;
+        int minRegionZ = (chunkZ - radius) >> REGION_SHIFT;
+        int maxRegionZ = (chunkZ + radius) >> REGION_SHIFT;
+
+        for (int rx = minRegionX; rx <= maxRegionX; rx++) {
+            for (int rz = minRegionZ; rz <= maxRegionZ; rz++) {
+                List<Placement> placements = index.regions.get(ChunkCoords.key(rx, rz));
+                if (placements == null) {
+                    continue;
+                }
+                for (Placement placement : placements) {
+                    if (Math.abs(placement.chunkX() - chunkX) <= radius && Math.abs(placement.chunkZ() - chunkZ) <= radius) {
+                        result.add(placement.key());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public int getCoveredChunkCount(String world) {
+        WorldIndex index = worlds.get(world);
+        return index == null ? 0 : index.coverage.size();
+    }
+
+    private static long regionKey(int chunkX, int chunkZ) {
+        return ChunkCoords.key(chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT);
+    }
+}
@@ -0,0 +1,119 @@
+package pl.psalkowski.chunkanchor.manager;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import pl.psalkowski.chunkanchor.util.LongCountMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Server-wide and per-world cap on the distinct chunks reserved by active anchors. An anchor reserves
+ * its whole area when it is activated, before its tickets are added, so the cap holds while loading.
+ */
+public class ChunkBudget {
+
+    private final int maxChunks;
+    private final Map<String, Integer> worldLimits = new HashMap<>();
+    private final LongCountMap reserved = new LongCountMap(1024);
+    private int[] worldReserved = new int[4];
+
+    public ChunkBudget(FileConfiguration config) {
+        this.maxChunks = Math.max(0, config.getInt("chunk-budget.max-chunks", 0));
+        ConfigurationSection worlds = config.getConfigurationSection("chunk-budget.worlds");
+        if (worlds != null) {
+            for (String world : worlds.getKeys(false)) {
+                int limit = worlds.getInt(world, 0);
+                if (limit > 0) {
+                    worldLimits.put(world, limit);
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return maxChunks > 0 || !worldLimits.isEmpty();
+    }
+
+    public int getMaxChunks() {
+        return maxChunks;
+    }
+
+    public int getWorldLimit(String world) {
+        return worldLimits.getOrDefault(world, 0);
+    }
+
+    public int getReservedChunks() {
+        return reserved.size();
+    }
+
+    public int getReservedChunks(int worldId) {
+        return worldId < worldReserved.length ? worldReserved[worldId] : 0;
+    }
+
+    int missingChunks(AnchorLoadProgress progress) {
+        int missing = 0;
+        for (int i = 0; i < progress.getTotalChunks(); i++) {
+            if (!reserved.contains(key(progress, i))) {
+                missing++;
+            }
+        }
+        return missing;
+    }
+
+    int globalOverflow(int additional) {
+        return maxChunks == 0 ? 0 : Math.max(0, reserved.size() + additional - maxChunks);
+    }
+
+    int worldOverflow(AnchorLoadProgress progress, int additional) {
+        int limit = getWorldLimit(progress.getWorld().getName());
+        return limit == 0 ? 0 : Math.max(0, getReservedChunks(progress.getWorldId()) + additional - limit);
+    }
+
+    /**
+     * Chunks that releasing {@code candidate} would return to the budget, not counting chunks that
+     * {@code incoming} needs anyway. Chunks shared with other active anchors are not counted.
+     */
+    int freedBy(AnchorLoadProgress candidate, AnchorLoadProgress incoming) {
+        int freed = 0;
+        for (int i = 0; i < candidate.getTotalChunks(); i++) {
+            if (reserved.get(key(candidate, i)) == 1
+                    && !incoming.covers(candidate.getWorldId(), candidate.chunkX(i), candidate.chunkZ(i))) {
+                freed++;
+            }
+        }
+        return freed;
+    }
+
+    void reserve(AnchorLoadProgress progress) {
+        int worldId = progress.getWorldId();
+        if (worldId >= worldReserved.length) {
+            worldReserved = Arrays.copyOf(worldReserved, Math.max(worldId + 1, worldReserved.length * 2));
+        }
+        for (int i = 0; i < progress.getTotalChunks(); i++) {
+            if (reserved.increment(key(progress, i)) == 1) {
+                worldReserved[worldId]++;
+            }
+        }
+    }
+
+    void release(AnchorLoadProgress progress) {
+        int worldId = progress.getWorldId();
+        for (int i = 0; i < progress.getTotalChunks(); i++) {
+            long key = key(progress, i);
+            if (reserved.contains(key) && reserved.decrement(key) == 0) {
+                worldReserved[worldId]--;
+            }
+        }
+    }
+
+    void clear() {
+        reserved.clear();
+        Arrays.fill(worldReserved, 0);
+    }
+
+    private static long key(AnchorLoadProgress progress, int index) {
+        return ChunkTicketIndex.pack(progress.getWorldId(), progress.chunkX(index), progress.chunkZ(index));
+    }
+}
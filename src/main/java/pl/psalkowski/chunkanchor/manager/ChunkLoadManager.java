@@ -1,80 +1,174 @@
 package pl.psalkowski.chunkanchor.manager;
 
 import org.bukkit.Bukkit;
-import org.bukkit.Chunk;
 import org.bukkit.World;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.plugin.Plugin;
+import pl.psalkowski.chunkanchor.metrics.AnchorChunksLoadedEvent;
+import pl.psalkowski.chunkanchor.metrics.AnchorChunksUnloadedEvent;
+import pl.psalkowski.chunkanchor.metrics.AnchorMetrics;
+import pl.psalkowski.chunkanchor.model.AnchorKey;
+import pl.psalkowski.chunkanchor.model.AnchorLoadState;
 import pl.psalkowski.chunkanchor.model.LoadMode;
-
-import java.util.HashSet;
+import pl.psalkowski.chunkanchor.scheduler.TaskHandle;
+import pl.psalkowski.chunkanchor.scheduler.TaskScheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Anchor load state is owned by the global thread (the main thread on Paper, the global region
+ * thread on Folia). Calls that change it from another thread, such as commands and player events
+ * on Folia, are handed to the global thread; the state getters may be called from any thread.
+ */
 public class ChunkLoadManager {
 
     private final Plugin plugin;
+    private final TaskScheduler scheduler;
     private final AnchorManager anchorManager;
+    private final AnchorMetrics metrics;
     private final LoadMode defaultLoadMode;
-    private final int chunkRadius;
-    private boolean playerOnlineChunksLoaded;
-    private final Set<String> loadedAnchorKeys = new HashSet<>();
-
-    public ChunkLoadManager(Plugin plugin, FileConfiguration config, AnchorManager anchorManager, LoadMode defaultLoadMode) {
+    private volatile boolean playerOnlineChunksLoaded;
+    private final ChunkTicketIndex ticketIndex;
+    private final ChunkLoadQueue loadQueue;
+    private final AnchorRestoreScheduler restoreScheduler;
+    private final LoadWindowScheduler windowScheduler;
+    private final LagShedder lagShedder;
+    private final WorldActivationQueue worldQueue;
+    private final BitSet activeAnchors = new BitSet();
+    private AnchorLoadProgress[] anchorProgress = new AnchorLoadProgress[64];
+    private AnchorKey[] anchorKeys = new AnchorKey[64];
+    private final BitSet suspendedAnchors = new BitSet();
+    private final BitSet shedAnchors = new BitSet();
+    private final BitSet waitingAnchors = new BitSet();
+    private final ChunkBudget budget;
+    private final AnchorPriorities priorities;
+    private boolean suspendedRestorePending;
+    private final Set<UUID> onlineOwners = ConcurrentHashMap.newKeySet();
+    private final long gracePeriodTicks;
+    private volatile TaskHandle playerOnlineUnloadTask;
+    private final Map<UUID, TaskHandle> ownerUnloadTasks = new HashMap<>();
+
+    public ChunkLoadManager(Plugin plugin, FileConfiguration config, TaskScheduler scheduler, AnchorManager anchorManager, AnchorMetrics metrics, LoadMode defaultLoadMode) {
         this.plugin = plugin;
+        this.scheduler = scheduler;
         this.anchorManager = anchorManager;
+        this.metrics = metrics;
         this.defaultLoadMode = defaultLoadMode;
-        this.chunkRadius = config.getInt("chunk-radius", 3);
+        this.gracePeriodTicks = Math.max(0, config.getLong("unload-grace-seconds", 60)) * 20L;
         this.playerOnlineChunksLoaded = false;
+        this.ticketIndex = new ChunkTicketIndex(plugin, scheduler);
+        this.loadQueue = new ChunkLoadQueue(plugin, config, scheduler, ticketIndex, metrics);
+        this.restoreScheduler = new AnchorRestoreScheduler(plugin, config, scheduler, this);
+        this.windowScheduler = new LoadWindowScheduler(plugin, config, scheduler, this);
+        this.lagShedder = new LagShedder(plugin, config, scheduler, this);
+        this.worldQueue = new WorldActivationQueue(plugin, config, scheduler, this);
+        this.budget = new ChunkBudget(config);
+        this.priorities = new AnchorPriorities(plugin, config);
     }
 
     public void loadAlwaysAnchors() {
+        if (deferToGlobalThread(this::loadAlwaysAnchors)) {
+            return;
+        }
         Map<UUID, Map<String, AnchorManager.Anchor>> allAnchors = anchorManager.getAllAnchors();
-        int loadedCount = 0;
+        List<AnchorKey> toRestore = new ArrayList<>();
 
         for (Map.Entry<UUID, Map<String, AnchorManager.Anchor>> playerEntry : allAnchors.entrySet()) {
             UUID playerId = playerEntry.getKey();
             for (Map.Entry<String, AnchorManager.Anchor> anchorEntry : playerEntry.getValue().entrySet()) {
-                String anchorName = anchorEntry.getKey();
-                AnchorManager.Anchor anchor = anchorEntry.getValue();
-                if (shouldLoadAlways(anchor) && loadChunksForAnchorInternal(playerId, anchorName, anchor)) {
-                    loadedCount++;
+                if (shouldLoadAlways(anchorEntry.getValue())) {
+                    toRestore.add(new AnchorKey(playerId, anchorEntry.getKey()));
+                } else if (shouldLoadScheduled(anchorEntry.getValue())) {
+                    windowScheduler.register(new AnchorKey(playerId, anchorEntry.getKey()), anchorEntry.getValue());
                 }
             }
         }
 
-        if (loadedCount > 0) {
-            plugin.getLogger().info("Loaded chunks for " + loadedCount + " ALWAYS-mode anchors");
+        sortKeysByPriority(toRestore);
+        restoreScheduler.start(toRestore);
+    }
+
+    public void onFirstPlayerJoin() {
+        if (deferToGlobalThread(this::onFirstPlayerJoin)) {
+            return;
         }
+        if (cancelPlayerOnlineUnload()) {
+            return;
+        }
+        loadPlayerOnlineAnchors();
+    }
+
+    public void onLastPlayerQuit() {
+        if (deferToGlobalThread(this::onLastPlayerQuit)) {
+            return;
+        }
+        if (!playerOnlineChunksLoaded || playerOnlineUnloadTask != null) {
+            return;
+        }
+        if (gracePeriodTicks == 0) {
+            unloadPlayerOnlineAnchors();
+            return;
+        }
+        playerOnlineUnloadTask = scheduler.runGlobalLater(() -> {
+            playerOnlineUnloadTask = null;
+            unloadPlayerOnlineAnchors();
+        }, gracePeriodTicks);
+    }
+
+    public boolean isPlayerOnlineUnloadPending() {
+        return playerOnlineUnloadTask != null;
     }
 
     public void loadPlayerOnlineAnchors() {
+        if (deferToGlobalThread(this::loadPlayerOnlineAnchors)) {
+            return;
+        }
+        cancelPlayerOnlineUnload();
         if (playerOnlineChunksLoaded) {
             return;
         }
 
         Map<UUID, Map<String, AnchorManager.Anchor>> allAnchors = anchorManager.getAllAnchors();
-        int loadedCount = 0;
+        List<AnchorKey> toLoad = new ArrayList<>();
 
         for (Map.Entry<UUID, Map<String, AnchorManager.Anchor>> playerEntry : allAnchors.entrySet()) {
-            UUID playerId = playerEntry.getKey();
             for (Map.Entry<String, AnchorManager.Anchor> anchorEntry : playerEntry.getValue().entrySet()) {
-                String anchorName = anchorEntry.getKey();
-                AnchorManager.Anchor anchor = anchorEntry.getValue();
-                if (shouldLoadOnPlayerOnline(anchor) && loadChunksForAnchorInternal(playerId, anchorName, anchor)) {
-                    loadedCount++;
+                if (shouldLoadOnPlayerOnline(anchorEntry.getValue())) {
+                    toLoad.add(new AnchorKey(playerEntry.getKey(), anchorEntry.getKey()));
                 }
             }
         }
 
+        sortKeysByPriority(toLoad);
+        int loadedCount = 0;
+        for (AnchorKey key : toLoad) {
+            if (loadChunksForAnchorInternal(key.owner(), key.name(), getAnchor(key))) {
+                loadedCount++;
+            }
+        }
+
         playerOnlineChunksLoaded = true;
         if (loadedCount > 0) {
-            plugin.getLogger().info("Loaded chunks for " + loadedCount + " PLAYER_ONLINE-mode anchors");
+            plugin.getLogger().info("Queued chunk loading for " + loadedCount + " PLAYER_ONLINE-mode anchors");
         }
     }
 
     public void unloadPlayerOnlineAnchors() {
+        if (deferToGlobalThread(this::unloadPlayerOnlineAnchors)) {
+            return;
+        }
+        cancelPlayerOnlineUnload();
         if (!playerOnlineChunksLoaded) {
             return;
         }
@@ -83,11 +177,9 @@ public class ChunkLoadManager {
         int unloadedCount = 0;
 
         for (Map.Entry<UUID, Map<String, AnchorManager.Anchor>> playerEntry : allAnchors.entrySet()) {
-            UUID playerId = playerEntry.getKey();
             for (Map.Entry<String, AnchorManager.Anchor> anchorEntry : playerEntry.getValue().entrySet()) {
-                String anchorName = anchorEntry.getKey();
                 AnchorManager.Anchor anchor = anchorEntry.getValue();
-                if (shouldLoadOnPlayerOnline(anchor) && unloadChunksForAnchorInternal(playerId, anchorName, anchor)) {
+                if (shouldLoadOnPlayerOnline(anchor) && unloadChunksForAnchorInternal(playerEntry.getKey(), anchorEntry.getKey(), anchor)) {
                     unloadedCount++;
                 }
             }
@@ -99,27 +191,82 @@ public class ChunkLoadManager {
         }
     }
 
-    public void unloadAllChunks() {
-        Map<UUID, Map<String, AnchorManager.Anchor>> allAnchors = anchorManager.getAllAnchors();
-        int unloadedCount = 0;
+    public void onOwnerJoin(UUID playerId) {
+        if (deferToGlobalThread(() -> onOwnerJoin(playerId))) {
+            return;
+        }
+        TaskHandle pendingUnload = ownerUnloadTasks.remove(playerId);
+        if (pendingUnload != null) {
+            pendingUnload.cancel();
+            return;
+        }
+        if (!onlineOwners.add(playerId)) {
+            return;
+        }
 
-        for (Map.Entry<UUID, Map<String, AnchorManager.Anchor>> playerEntry : allAnchors.entrySet()) {
-            UUID playerId = playerEntry.getKey();
-            for (Map.Entry<String, AnchorManager.Anchor> anchorEntry : playerEntry.getValue().entrySet()) {
-                String anchorName = anchorEntry.getKey();
-                AnchorManager.Anchor anchor = anchorEntry.getValue();
-                if (unloadChunksForAnchorInternal(playerId, anchorName, anchor)) {
-                    unloadedCount++;
-                }
+        int loadedCount = 0;
+        for (Map.Entry<String, AnchorManager.Anchor> anchorEntry : anchorManager.getPlayerAnchors(playerId).entrySet()) {
+            AnchorManager.Anchor anchor = anchorEntry.getValue();
+            if (shouldLoadOnOwnerOnline(anchor) && loadChunksForAnchorInternal(playerId, anchorEntry.getKey(), anchor)) {
+                loadedCount++;
             }
         }
 
+        if (loadedCount > 0) {
+            plugin.getLogger().info("Queued chunk loading for " + loadedCount + " OWNER_ONLINE-mode anchors of " + playerId);
+        }
+    }
+
+    public void onOwnerQuit(UUID playerId) {
+        if (deferToGlobalThread(() -> onOwnerQuit(playerId))) {
+            return;
+        }
+        if (!onlineOwners.contains(playerId) || ownerUnloadTasks.containsKey(playerId)) {
+            return;
+        }
+        if (gracePeriodTicks == 0) {
+            unloadOwnerAnchors(playerId);
+            return;
+        }
+        ownerUnloadTasks.put(playerId, scheduler.runGlobalLater(() -> {
+            ownerUnloadTasks.remove(playerId);
+            unloadOwnerAnchors(playerId);
+        }, gracePeriodTicks));
+    }
+
+    public synchronized void unloadAllChunks() {
+        cancelPlayerOnlineUnload();
+        ownerUnloadTasks.values().forEach(TaskHandle::cancel);
+        ownerUnloadTasks.clear();
+        restoreScheduler.cancel();
+        windowScheduler.cancel();
+        lagShedder.cancel();
+        worldQueue.cancel();
+        loadQueue.shutdown();
+        int unloadedCount = 0;
+
+        for (int id = activeAnchors.nextSetBit(0); id >= 0; id = activeAnchors.nextSetBit(id + 1)) {
+            anchorProgress[id].cancel();
+            unloadedCount++;
+        }
+
         playerOnlineChunksLoaded = false;
-        loadedAnchorKeys.clear();
+        onlineOwners.clear();
+        activeAnchors.clear();
+        suspendedAnchors.clear();
+        shedAnchors.clear();
+        waitingAnchors.clear();
+        Arrays.fill(anchorProgress, null);
+        Arrays.fill(anchorKeys, null);
+        budget.clear();
+        ticketIndex.releaseAll();
         plugin.getLogger().info("Unloaded chunks for " + unloadedCount + " anchors");
     }
 
     public void loadChunksForAnchor(UUID playerId, String anchorName) {
+        if (deferToGlobalThread(() -> loadChunksForAnchor(playerId, anchorName))) {
+            return;
+        }
         AnchorManager.Anchor anchor = anchorManager.getAnchor(playerId, anchorName);
         if (anchor == null || !anchor.enabled()) {
             return;
@@ -129,6 +276,13 @@ public class ChunkLoadManager {
             loadChunksForAnchorInternal(playerId, anchorName, anchor);
         } else if (shouldLoadOnPlayerOnline(anchor) && playerOnlineChunksLoaded) {
             loadChunksForAnchorInternal(playerId, anchorName, anchor);
+        } else if (shouldLoadOnOwnerOnline(anchor) && onlineOwners.contains(playerId)) {
+            loadChunksForAnchorInternal(playerId, anchorName, anchor);
+        } else if (shouldLoadScheduled(anchor)) {
+            windowScheduler.register(new AnchorKey(playerId, anchorName), anchor);
+            if (windowScheduler.isOpen(anchor)) {
+                loadChunksForAnchorInternal(playerId, anchorName, anchor);
+            }
         }
     }
 
@@ -138,10 +292,22 @@ public class ChunkLoadManager {
             return;
         }
 
+        // The anchor is resolved up front because the caller may remove it before a deferred unload runs
+        if (deferToGlobalThread(() -> unloadChunksForAnchor(playerId, anchorName, anchor))) {
+            return;
+        }
+        unloadChunksForAnchor(playerId, anchorName, anchor);
+    }
+
+    private void unloadChunksForAnchor(UUID playerId, String anchorName, AnchorManager.Anchor anchor) {
+        windowScheduler.unregister(new AnchorKey(playerId, anchorName));
         unloadChunksForAnchorInternal(playerId, anchorName, anchor);
     }
 
     public void onAnchorEnabledChanged(UUID playerId, String anchorName, boolean enabled) {
+        if (deferToGlobalThread(() -> onAnchorEnabledChanged(playerId, anchorName, enabled))) {
+            return;
+        }
         AnchorManager.Anchor anchor = anchorManager.getAnchor(playerId, anchorName);
         if (anchor == null) {
             return;
@@ -155,27 +321,512 @@ public class ChunkLoadManager {
     }
 
     public void onAnchorModeChanged(UUID playerId, String anchorName, LoadMode oldMode, LoadMode newMode) {
+        if (deferToGlobalThread(() -> refreshAnchor(playerId, anchorName))) {
+            return;
+        }
+        refreshAnchor(playerId, anchorName);
+    }
+
+    public void onAnchorScheduleChanged(UUID playerId, String anchorName) {
+        if (deferToGlobalThread(() -> refreshAnchor(playerId, anchorName))) {
+            return;
+        }
+        refreshAnchor(playerId, anchorName);
+    }
+
+    public boolean isAnchorLoaded(UUID playerId, String anchorName) {
+        AnchorManager.Anchor anchor = anchorManager.getAnchor(playerId, anchorName);
+        return anchor != null && isAnchorLoaded(anchor);
+    }
+
+    public boolean isAnchorLoaded(AnchorManager.Anchor anchor) {
+        AnchorLoadProgress progress = getAnchorLoadProgress(anchor);
+        return progress != null && progress.isComplete();
+    }
+
+    public AnchorLoadState getAnchorLoadState(UUID playerId, String anchorName) {
+        AnchorManager.Anchor anchor = anchorManager.getAnchor(playerId, anchorName);
+        return anchor == null ? AnchorLoadState.UNLOADED : getAnchorLoadState(anchor);
+    }
+
+    public synchronized AnchorLoadState getAnchorLoadState(AnchorManager.Anchor anchor) {
+        if (suspendedAnchors.get(anchor.id())) {
+            return AnchorLoadState.SUSPENDED;
+        }
+        if (shedAnchors.get(anchor.id())) {
+            return AnchorLoadState.SHED;
+        }
+        if (waitingAnchors.get(anchor.id())) {
+            return AnchorLoadState.WAITING_FOR_WORLD;
+        }
+        AnchorLoadProgress progress = getAnchorLoadProgress(anchor);
+        return progress == null ? AnchorLoadState.UNLOADED : progress.getState();
+    }
+
+    public AnchorLoadProgress getAnchorLoadProgress(UUID playerId, String anchorName) {
+        AnchorManager.Anchor anchor = anchorManager.getAnchor(playerId, anchorName);
+        return anchor == null ? null : getAnchorLoadProgress(anchor);
+    }
+
+    public synchronized AnchorLoadProgress getAnchorLoadProgress(AnchorManager.Anchor anchor) {
+        int id = anchor.id();
+        return id < anchorProgress.length ? anchorProgress[id] : null;
+    }
+
+    public synchronized int getActiveAnchorCount() {
+        return activeAnchors.cardinality();
+    }
+
+    public synchronized int getSuspendedAnchorCount() {
+        return suspendedAnchors.cardinality();
+    }
+
+    public synchronized int getShedAnchorCount() {
+        return shedAnchors.cardinality();
+    }
+
+    public ChunkBudget getChunkBudget() {
+        return budget;
+    }
+
+    public AnchorPriorities getPriorities() {
+        return priorities;
+    }
+
+    /**
+     * Moves an active anchor to its new shape by diffing the old and new chunk sets: chunks in both
+     * keep their tickets, only removed chunks are released and only added chunks are queued.
+     */
+    public synchronized void onAnchorShapeChanged(UUID playerId, String anchorName, AnchorManager.Anchor oldAnchor) {
+        if (deferToGlobalThread(() -> onAnchorShapeChanged(playerId, anchorName, oldAnchor))) {
+            return;
+        }
+        AnchorManager.Anchor anchor = anchorManager.getAnchor(playerId, anchorName);
+        if (anchor == null) {
+            return;
+        }
+        int id = anchor.id();
+        if (!activeAnchors.get(id)) {
+            if (suspendedAnchors.get(id)) {
+                scheduleSuspendedRestore();
+            }
+            return;
+        }
+
+        AnchorLoadProgress previous = anchorProgress[id];
+        AnchorLoadProgress progress = new AnchorLoadProgress(previous.getWorld(), previous.getWorldId(), anchor.chunkX(), anchor.chunkZ(), anchorManager.getShape(anchor));
+        if (budget.isEnabled()) {
+            budget.release(previous);
+            int missing = budget.missingChunks(progress);
+            if ((budget.globalOverflow(missing) > 0 || budget.worldOverflow(progress, missing) > 0)
+                    && !makeRoom(new AnchorKey(playerId, anchorName), anchor, progress, missing)) {
+                budget.reserve(previous);
+                unloadChunksForAnchorInternal(playerId, anchorName, oldAnchor);
+                suspend(new AnchorKey(playerId, anchorName), anchor);
+                return;
+            }
+            budget.reserve(progress);
+        }
+
+        previous.cancel();
+        BitSet ticketed = previous.ticketedChunks();
+        for (int i = ticketed.nextSetBit(0); i >= 0; i = ticketed.nextSetBit(i + 1)) {
+            int index = progress.indexOf(previous.chunkX(i), previous.chunkZ(i));
+            if (index >= 0) {
+                progress.markTicketed(index);
+            } else {
+                ticketIndex.release(previous.getWorldId(), previous.chunkX(i), previous.chunkZ(i));
+            }
+        }
+        anchorProgress[id] = progress;
+        if (!progress.isComplete()) {
+            loadQueue.enqueue(progress);
+        }
+        if (budget.isEnabled()) {
+            scheduleSuspendedRestore();
+        }
+    }
+
+    public void onAnchorPriorityChanged(UUID playerId, String anchorName) {
+        if (deferToGlobalThread(() -> onAnchorPriorityChanged(playerId, anchorName))) {
+            return;
+        }
+        if (budget.isEnabled()) {
+            scheduleSuspendedRestore();
+        }
+    }
+
+    public AnchorRestoreScheduler getRestoreScheduler() {
+        return restoreScheduler;
+    }
+
+    public LoadWindowScheduler getWindowScheduler() {
+        return windowScheduler;
+    }
+
+    public LagShedder getLagShedder() {
+        return lagShedder;
+    }
+
+    public WorldActivationQueue getWorldQueue() {
+        return worldQueue;
+    }
+
+    public void onWorldLoad(World world) {
+        if (deferToGlobalThread(() -> onWorldLoad(world))) {
+            return;
+        }
+        worldQueue.onWorldLoad(world.getName());
+    }
+
+    /**
+     * Releases the tickets of every active anchor in the world while it is still loaded, and parks
+     * the anchors until the world loads again.
+     * <p>
+     * The world is gone once the unload event returns, so this cannot be handed to the global thread
+     * like other calls. Paper unloads worlds on the main thread; Folia does not support unloading
+     * worlds, and a call from any other thread is ignored with a warning.
+     */
+    public synchronized void onWorldUnload(World world) {
+        if (!scheduler.isGlobalThread()) {
+            plugin.getLogger().warning("World '" + world.getName() + "' was unloaded off the global thread; its anchors were not released");
+            return;
+        }
+        List<AnchorKey> released = new ArrayList<>();
+        for (int id = activeAnchors.nextSetBit(0); id >= 0; id = activeAnchors.nextSetBit(id + 1)) {
+            if (anchorProgress[id].getWorld().getUID().equals(world.getUID())) {
+                released.add(anchorKeys[id]);
+            }
+        }
+
+        for (AnchorKey key : released) {
+            AnchorManager.Anchor anchor = getAnchor(key);
+            if (anchor != null && unloadChunksForAnchorInternal(key.owner(), key.name(), anchor)) {
+                park(key, anchor);
+            }
+        }
+        ticketIndex.forgetWorld(world);
+        if (!released.isEmpty()) {
+            plugin.getLogger().info("World '" + world.getName() + "' unloaded: released chunks for " + released.size()
+                    + " anchors, they will be activated when it loads again");
+        }
+    }
+
+    ChunkLoadQueue getLoadQueue() {
+        return loadQueue;
+    }
+
+    /**
+     * Activates an anchor parked by {@link WorldActivationQueue} once its world has loaded, if it
+     * should still be loaded.
+     */
+    synchronized void activateWaitingAnchor(AnchorKey key) {
+        AnchorManager.Anchor anchor = getAnchor(key);
+        if (anchor == null || !waitingAnchors.get(anchor.id()) || !key.equals(anchorKeys[anchor.id()])) {
+            return;
+        }
+        waitingAnchors.clear(anchor.id());
+        anchorKeys[anchor.id()] = null;
+        if (shouldBeLoadedNow(key.owner(), anchor)) {
+            loadChunksForAnchorInternal(key.owner(), key.name(), anchor);
+        }
+    }
+
+    boolean restoreAnchor(UUID playerId, String anchorName) {
+        AnchorManager.Anchor anchor = anchorManager.getAnchor(playerId, anchorName);
+        return anchor != null && shouldLoadAlways(anchor) && loadChunksForAnchorInternal(playerId, anchorName, anchor);
+    }
+
+    /**
+     * Loads or unloads a SCHEDULED anchor to match its window. Returns false if the anchor is gone or
+     * no longer SCHEDULED.
+     */
+    boolean applyLoadWindow(AnchorKey key) {
+        AnchorManager.Anchor anchor = getAnchor(key);
+        if (anchor == null || !shouldLoadScheduled(anchor)) {
+            return false;
+        }
+        reconcile(key.owner(), key.name(), anchor);
+        return true;
+    }
+
+    /**
+     * Releases the tickets of up to {@code count} lowest-priority active anchors. They stay unloaded,
+     * whatever their load mode asks for, until {@link #restoreShedAnchors} brings them back.
+     */
+    synchronized List<AnchorKey> shedLowestPriority(int count) {
+        List<AnchorManager.Anchor> candidates = new ArrayList<>();
+        for (int id = activeAnchors.nextSetBit(0); id >= 0; id = activeAnchors.nextSetBit(id + 1)) {
+            AnchorManager.Anchor anchor = getAnchor(anchorKeys[id]);
+            if (anchor != null && anchor.id() == id) {
+                candidates.add(anchor);
+            }
+        }
+        sortByPriority(candidates);
+
+        List<AnchorKey> shed = new ArrayList<>();
+        for (AnchorManager.Anchor anchor : candidates.subList(0, Math.min(count, candidates.size()))) {
+            AnchorKey key = anchorKeys[anchor.id()];
+            unloadChunksForAnchorInternal(key.owner(), key.name(), anchor);
+            anchorKeys[anchor.id()] = key;
+            shedAnchors.set(anchor.id());
+            shed.add(key);
+        }
+        return shed;
+    }
+
+    /**
+     * Reactivates up to {@code count} shed anchors, highest priority first. Anchors that should no
+     * longer be loaded are dropped without counting toward {@code count}.
+     */
+    synchronized List<AnchorKey> restoreShedAnchors(int count) {
+        List<AnchorManager.Anchor> shed = new ArrayList<>();
+        for (int id = shedAnchors.nextSetBit(0); id >= 0; id = shedAnchors.nextSetBit(id + 1)) {
+            AnchorKey key = anchorKeys[id];
+            AnchorManager.Anchor anchor = getAnchor(key);
+            if (anchor == null || anchor.id() != id || !shouldBeLoadedNow(key.owner(), anchor)) {
+                shedAnchors.clear(id);
+                anchorKeys[id] = null;
+            } else {
+                shed.add(anchor);
+            }
+        }
+        sortByPriority(shed);
+        Collections.reverse(shed);
+
+        List<AnchorKey> restored = new ArrayList<>();
+        for (AnchorManager.Anchor anchor : shed.subList(0, Math.min(count, shed.size()))) {
+            AnchorKey key = anchorKeys[anchor.id()];
+            shedAnchors.clear(anchor.id());
+            anchorKeys[anchor.id()] = null;
+            loadChunksForAnchorInternal(key.owner(), key.name(), anchor, false);
+            restored.add(key);
+        }
+        if (shedAnchors.isEmpty()) {
+            scheduleSuspendedRestore();
+        }
+        return restored;
+    }
+
+    public ChunkTicketIndex getTicketIndex() {
+        return ticketIndex;
+    }
+
+    public boolean isPlayerOnlineChunksLoaded() {
+        return playerOnlineChunksLoaded;
+    }
+
+    public LoadMode getEffectiveLoadMode(AnchorManager.Anchor anchor) {
+        return anchor.loadMode() == LoadMode.DEFAULT ? defaultLoadMode : anchor.loadMode();
+    }
+
+    private void unloadOwnerAnchors(UUID playerId) {
+        if (!onlineOwners.remove(playerId)) {
+            return;
+        }
+
+        int unloadedCount = 0;
+        for (Map.Entry<String, AnchorManager.Anchor> anchorEntry : anchorManager.getPlayerAnchors(playerId).entrySet()) {
+            AnchorManager.Anchor anchor = anchorEntry.getValue();
+            if (shouldLoadOnOwnerOnline(anchor) && unloadChunksForAnchorInternal(playerId, anchorEntry.getKey(), anchor)) {
+                unloadedCount++;
+            }
+        }
+
+        if (unloadedCount > 0) {
+            plugin.getLogger().info("Unloaded chunks for " + unloadedCount + " OWNER_ONLINE-mode anchors of " + playerId);
+        }
+    }
+
+    private void refreshAnchor(UUID playerId, String anchorName) {
         AnchorManager.Anchor anchor = anchorManager.getAnchor(playerId, anchorName);
         if (anchor == null || !anchor.enabled()) {
             return;
         }
 
-        boolean wasLoaded = isAnchorLoaded(playerId, anchorName);
-        boolean shouldBeLoaded = shouldBeLoadedNow(anchor);
+        AnchorKey key = new AnchorKey(playerId, anchorName);
+        if (shouldLoadScheduled(anchor)) {
+            windowScheduler.register(key, anchor);
+        } else {
+            windowScheduler.unregister(key);
+        }
+        reconcile(playerId, anchorName, anchor);
+    }
+
+    private void reconcile(UUID playerId, String anchorName, AnchorManager.Anchor anchor) {
+        boolean wasLoaded = activeAnchors.get(anchor.id());
+        boolean shouldBeLoaded = shouldBeLoadedNow(playerId, anchor);
 
         if (wasLoaded && !shouldBeLoaded) {
             unloadChunksForAnchorInternal(playerId, anchorName, anchor);
         } else if (!wasLoaded && shouldBeLoaded) {
             loadChunksForAnchorInternal(playerId, anchorName, anchor);
+        } else if (!shouldBeLoaded && waitingAnchors.get(anchor.id())) {
+            unloadChunksForAnchorInternal(playerId, anchorName, anchor);
         }
     }
 
-    public boolean isAnchorLoaded(UUID playerId, String anchorName) {
-        return loadedAnchorKeys.contains(getAnchorKey(playerId, anchorName));
+    private AnchorManager.Anchor getAnchor(AnchorKey key) {
+        return anchorManager.getAnchor(key.owner(), key.name());
     }
 
-    public boolean isPlayerOnlineChunksLoaded() {
-        return playerOnlineChunksLoaded;
+    /**
+     * Highest priority first.
+     */
+    private void sortKeysByPriority(List<AnchorKey> keys) {
+        if (budget.isEnabled()) {
+            Map<AnchorKey, AnchorPriorities.Rank> ranks = new HashMap<>();
+            for (AnchorKey key : keys) {
+                ranks.put(key, priorities.rank(key, getAnchor(key)));
+            }
+            keys.sort(Comparator.comparing(ranks::get, Comparator.reverseOrder()));
+        }
+    }
+
+    /**
+     * Lowest priority first; the anchors must be tracked in {@code anchorKeys}.
+     */
+    private void sortByPriority(List<AnchorManager.Anchor> anchors) {
+        Map<AnchorManager.Anchor, AnchorPriorities.Rank> ranks = new IdentityHashMap<>();
+        for (AnchorManager.Anchor anchor : anchors) {
+            ranks.put(anchor, priorities.rank(anchorKeys[anchor.id()], anchor));
+        }
+        anchors.sort(Comparator.comparing(ranks::get));
+    }
+
+    /**
+     * Releases lower-priority active anchors until {@code incoming} fits the budget. Nothing is
+     * released unless enough chunks can be freed.
+     */
+    private boolean makeRoom(AnchorKey incomingKey, AnchorManager.Anchor incoming, AnchorLoadProgress progress, int missing) {
+        int globalNeeded = budget.globalOverflow(missing);
+        int worldNeeded = budget.worldOverflow(progress, missing);
+
+        AnchorPriorities.Rank incomingRank = priorities.rank(incomingKey, incoming);
+        List<AnchorManager.Anchor> candidates = new ArrayList<>();
+        for (int id = activeAnchors.nextSetBit(0); id >= 0; id = activeAnchors.nextSetBit(id + 1)) {
+            AnchorManager.Anchor candidate = getAnchor(anchorKeys[id]);
+            if (candidate != null && candidate.id() == id
+                    && priorities.rank(anchorKeys[id], candidate).compareTo(incomingRank) < 0) {
+                candidates.add(candidate);
+            }
+        }
+        sortByPriority(candidates);
+
+        List<AnchorManager.Anchor> evicted = new ArrayList<>();
+        for (AnchorManager.Anchor candidate : candidates) {
+            if (globalNeeded <= 0 && worldNeeded <= 0) {
+                break;
+            }
+            AnchorLoadProgress candidateProgress = anchorProgress[candidate.id()];
+            boolean sameWorld = candidateProgress.getWorldId() == progress.getWorldId();
+            if (globalNeeded <= 0 && !sameWorld) {
+                continue;
+            }
+            int freed = budget.freedBy(candidateProgress, progress);
+            if (freed == 0) {
+                continue;
+            }
+            evicted.add(candidate);
+            globalNeeded -= freed;
+            if (sameWorld) {
+                worldNeeded -= freed;
+            }
+        }
+        if (globalNeeded > 0 || worldNeeded > 0) {
+            return false;
+        }
+
+        for (AnchorManager.Anchor candidate : evicted) {
+            AnchorKey key = anchorKeys[candidate.id()];
+            unloadChunksForAnchorInternal(key.owner(), key.name(), candidate);
+            suspend(key, candidate);
+        }
+        plugin.getLogger().info("Suspended " + evicted.size() + " lower-priority anchors to stay within the chunk budget");
+        return true;
+    }
+
+    private synchronized boolean park(AnchorKey key, AnchorManager.Anchor anchor) {
+        ensureCapacity(anchor.id());
+        anchorKeys[anchor.id()] = key;
+        suspendedAnchors.clear(anchor.id());
+        waitingAnchors.set(anchor.id());
+        return worldQueue.park(key, anchor.world());
+    }
+
+    private synchronized void suspend(AnchorKey key, AnchorManager.Anchor anchor) {
+        ensureCapacity(anchor.id());
+        anchorKeys[anchor.id()] = key;
+        suspendedAnchors.set(anchor.id());
+    }
+
+    private void scheduleSuspendedRestore() {
+        if (suspendedRestorePending || suspendedAnchors.isEmpty()) {
+            return;
+        }
+        suspendedRestorePending = true;
+        scheduler.runGlobalLater(this::restoreSuspendedAnchors, 1L);
+    }
+
+    private synchronized void restoreSuspendedAnchors() {
+        suspendedRestorePending = false;
+        if (!shedAnchors.isEmpty()) {
+            // Chunks freed by lag shedding must not be refilled by budget-suspended anchors
+            return;
+        }
+        List<AnchorManager.Anchor> suspended = new ArrayList<>();
+        for (int id = suspendedAnchors.nextSetBit(0); id >= 0; id = suspendedAnchors.nextSetBit(id + 1)) {
+            AnchorKey key = anchorKeys[id];
+            AnchorManager.Anchor anchor = getAnchor(key);
+            if (anchor == null || anchor.id() != id || !shouldBeLoadedNow(key.owner(), anchor)) {
+                suspendedAnchors.clear(id);
+                anchorKeys[id] = null;
+            } else {
+                suspended.add(anchor);
+            }
+        }
+        sortByPriority(suspended);
+        Collections.reverse(suspended);
+
+        int restoredCount = 0;
+        for (AnchorManager.Anchor anchor : suspended) {
+            AnchorKey key = anchorKeys[anchor.id()];
+            if (loadChunksForAnchorInternal(key.owner(), key.name(), anchor, false)) {
+                restoredCount++;
+            }
+        }
+        if (restoredCount > 0) {
+            plugin.getLogger().info("Restored " + restoredCount + " suspended anchors");
+        }
+    }
+
+    private void ensureCapacity(int id) {
+        if (id >= anchorProgress.length) {
+            int length = Math.max(id + 1, anchorProgress.length * 2);
+            anchorProgress = Arrays.copyOf(anchorProgress, length);
+            anchorKeys = Arrays.copyOf(anchorKeys, length);
+        }
+    }
+
+    /**
+     * Hands the call to the global thread when made from another thread. Returns true if it was handed
+     * over, in which case the caller returns and the call reruns there.
+     */
+    private boolean deferToGlobalThread(Runnable call) {
+        if (scheduler.isGlobalThread()) {
+            return false;
+        }
+        scheduler.executeGlobal(call);
+        return true;
+    }
+
+    private boolean cancelPlayerOnlineUnload() {
+        if (playerOnlineUnloadTask == null) {
+            return false;
+        }
+        playerOnlineUnloadTask.cancel();
+        playerOnlineUnloadTask = null;
+        return true;
     }
 
     private boolean shouldLoadAlways(AnchorManager.Anchor anchor) {
@@ -194,73 +845,135 @@ public class ChunkLoadManager {
         return effectiveMode == LoadMode.PLAYER_ONLINE;
     }
 
-    private boolean shouldBeLoadedNow(AnchorManager.Anchor anchor) {
+    private boolean shouldLoadOnOwnerOnline(AnchorManager.Anchor anchor) {
+        if (!anchor.enabled()) {
+            return false;
+        }
+        LoadMode effectiveMode = anchor.loadMode() == LoadMode.DEFAULT ? defaultLoadMode : anchor.loadMode();
+        return effectiveMode == LoadMode.OWNER_ONLINE;
+    }
+
+    private boolean shouldLoadScheduled(AnchorManager.Anchor anchor) {
+        if (!anchor.enabled()) {
+            return false;
+        }
+        LoadMode effectiveMode = anchor.loadMode() == LoadMode.DEFAULT ? defaultLoadMode : anchor.loadMode();
+        return effectiveMode == LoadMode.SCHEDULED;
+    }
+
+    private boolean shouldBeLoadedNow(UUID playerId, AnchorManager.Anchor anchor) {
         if (!anchor.enabled()) {
             return false;
         }
         if (shouldLoadAlways(anchor)) {
             return true;
         }
+        if (shouldLoadOnOwnerOnline(anchor)) {
+            return onlineOwners.contains(playerId);
+        }
+        if (shouldLoadScheduled(anchor)) {
+            return windowScheduler.isOpen(anchor);
+        }
         return shouldLoadOnPlayerOnline(anchor) && playerOnlineChunksLoaded;
     }
 
-    private String getAnchorKey(UUID playerId, String anchorName) {
-        return playerId.toString() + ":" + anchorName;
+    private boolean loadChunksForAnchorInternal(UUID playerId, String anchorName, AnchorManager.Anchor anchor) {
+        return loadChunksForAnchorInternal(playerId, anchorName, anchor, true);
     }
 
-    private boolean loadChunksForAnchorInternal(UUID playerId, String anchorName, AnchorManager.Anchor anchor) {
+    private synchronized boolean loadChunksForAnchorInternal(UUID playerId, String anchorName, AnchorManager.Anchor anchor, boolean evict) {
         if (!anchor.enabled()) {
             return false;
         }
 
-        String key = getAnchorKey(playerId, anchorName);
-        if (loadedAnchorKeys.contains(key)) {
+        int id = anchor.id();
+        if (activeAnchors.get(id) || shedAnchors.get(id) || waitingAnchors.get(id)) {
             return false;
         }
 
+        AnchorKey key = new AnchorKey(playerId, anchorName);
         World world = Bukkit.getWorld(anchor.world());
         if (world == null) {
-            plugin.getLogger().warning("Cannot load chunks for anchor: world '" + anchor.world() + "' is not loaded");
+            if (park(key, anchor)) {
+                plugin.getLogger().warning("World '" + anchor.world() + "' is not loaded; its anchors will be activated when it loads");
+            }
             return false;
         }
 
-        int cx = anchor.chunkX();
-        int cz = anchor.chunkZ();
-
-        for (int dx = -chunkRadius; dx <= chunkRadius; dx++) {
-            for (int dz = -chunkRadius; dz <= chunkRadius; dz++) {
-                Chunk chunk = world.getChunkAt(cx + dx, cz + dz);
-                chunk.addPluginChunkTicket(plugin);
+        AnchorLoadProgress progress = new AnchorLoadProgress(world, ticketIndex.worldId(world), anchor.chunkX(), anchor.chunkZ(), anchorManager.getShape(anchor));
+        if (budget.isEnabled()) {
+            int missing = budget.missingChunks(progress);
+            if ((budget.globalOverflow(missing) > 0 || budget.worldOverflow(progress, missing) > 0)
+                    && !(evict && makeRoom(key, anchor, progress, missing))) {
+                suspend(key, anchor);
+                return false;
             }
+            budget.reserve(progress);
         }
 
-        loadedAnchorKeys.add(key);
+        ensureCapacity(id);
+        anchorProgress[id] = progress;
+        anchorKeys[id] = key;
+        suspendedAnchors.clear(id);
+        activeAnchors.set(id);
+
+        AnchorChunksLoadedEvent event = new AnchorChunksLoadedEvent();
+        if (event.isEnabled()) {
+            event.owner = playerId.toString();
+            event.anchorName = anchorName;
+            event.world = anchor.world();
+            event.chunkCount = progress.getTotalChunks();
+        }
+        progress.beginLoad(event);
+        loadQueue.enqueue(progress);
         return true;
     }
 
-    private boolean unloadChunksForAnchorInternal(UUID playerId, String anchorName, AnchorManager.Anchor anchor) {
-        String key = getAnchorKey(playerId, anchorName);
-        if (!loadedAnchorKeys.contains(key)) {
+    private synchronized boolean unloadChunksForAnchorInternal(UUID playerId, String anchorName, AnchorManager.Anchor anchor) {
+        int id = anchor.id();
+        if (waitingAnchors.get(id)) {
+            worldQueue.remove(anchorKeys[id]);
+            waitingAnchors.clear(id);
+            anchorKeys[id] = null;
             return false;
         }
-
-        World world = Bukkit.getWorld(anchor.world());
-        if (world == null) {
-            loadedAnchorKeys.remove(key);
+        if (suspendedAnchors.get(id) || shedAnchors.get(id)) {
+            suspendedAnchors.clear(id);
+            shedAnchors.clear(id);
+            anchorKeys[id] = null;
+            return false;
+        }
+        if (!activeAnchors.get(id)) {
             return false;
         }
 
-        int cx = anchor.chunkX();
-        int cz = anchor.chunkZ();
-
-        for (int dx = -chunkRadius; dx <= chunkRadius; dx++) {
-            for (int dz = -chunkRadius; dz <= chunkRadius; dz++) {
-                Chunk chunk = world.getChunkAt(cx + dx, cz + dz);
-                chunk.removePluginChunkTicket(plugin);
-            }
+        AnchorChunksUnloadedEvent event = new AnchorChunksUnloadedEvent();
+        event.begin();
+        long start = System.nanoTime();
+        AnchorLoadProgress progress = anchorProgress[id];
+        anchorProgress[id] = null;
+        anchorKeys[id] = null;
+        activeAnchors.clear(id);
+        if (budget.isEnabled()) {
+            budget.release(progress);
+            scheduleSuspendedRestore();
         }
 
-        loadedAnchorKeys.remove(key);
+        progress.cancel();
+        BitSet ticketed = progress.ticketedChunks();
+        for (int i = ticketed.nextSetBit(0); i >= 0; i = ticketed.nextSetBit(i + 1)) {
+            ticketIndex.release(progress.getWorldId(), progress.chunkX(i), progress.chunkZ(i));
+        }
+        metrics.recordAnchorUnload(System.nanoTime() - start);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.owner = playerId.toString();
+            event.anchorName = anchorName;
+            event.world = anchor.world();
+            event.chunkCount = ticketed.cardinality();
+            event.commit();
+        }
         return true;
     }
 }
@@ -0,0 +1,193 @@
+package pl.psalkowski.chunkanchor.manager;
+
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+import pl.psalkowski.chunkanchor.metrics.AnchorChunksLoadedEvent;
+import pl.psalkowski.chunkanchor.metrics.AnchorMetrics;
+import pl.psalkowski.chunkanchor.scheduler.TaskHandle;
+import pl.psalkowski.chunkanchor.scheduler.TaskScheduler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+public class ChunkLoadQueue {
+
+    private static final long RETRY_DELAY_TICKS = 20L;
+    private static final int MAX_LOAD_ATTEMPTS = 10;
+
+    private record QueuedChunk(AnchorLoadProgress progress, int index) {
+    }
+
+    private final Plugin plugin;
+    private final TaskScheduler scheduler;
+    private final ChunkTicketIndex ticketIndex;
+    private final AnchorMetrics metrics;
+    private final int maxInFlight;
+    private final int ticketsPerTick;
+    private final int maxLoadAttempts;
+    private final Deque<AnchorLoadProgress> pending = new ArrayDeque<>();
+    private final Deque<QueuedChunk> loaded = new ArrayDeque<>();
+    private final Deque<QueuedChunk> retries = new ArrayDeque<>();
+    private int inFlight;
+    private int waitingRetries;
+    private boolean stopped;
+    private TaskHandle task;
+
+    public ChunkLoadQueue(Plugin plugin, FileConfiguration config, TaskScheduler scheduler, ChunkTicketIndex ticketIndex, AnchorMetrics metrics) {
+        this.plugin = plugin;
+        this.scheduler = scheduler;
+        this.ticketIndex = ticketIndex;
+        this.metrics = metrics;
+        this.maxInFlight = Math.max(1, config.getInt("chunk-loading.max-in-flight", 16));
+        this.ticketsPerTick = Math.max(1, config.getInt("chunk-loading.tickets-per-tick", 8));
+        this.maxLoadAttempts = Math.min(MAX_LOAD_ATTEMPTS, Math.max(1, config.getInt("chunk-loading.max-load-attempts", 3)));
+    }
+
+    public void enqueue(AnchorLoadProgress progress) {
+        pending.addLast(progress);
+        ensureRunning();
+    }
+
+    public void shutdown() {
+        stopped = true;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        pending.forEach(AnchorLoadProgress::cancel);
+        pending.clear();
+        loaded.clear();
+        retries.clear();
+    }
+
+    public int getPendingAnchors() {
+        return pending.size();
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Chunk loads that failed and are waiting to be requested again.
+     */
+    public int getRetryingChunks() {
+        return waitingRetries + retries.size();
+    }
+
+    private void ensureRunning() {
+        if (task == null && !stopped) {
+            task = scheduler.runGlobalTimer(this::tick, 0L, 1L);
+        }
+    }
+
+    private void tick() {
+        addTickets();
+        requestChunks();
+
+        if (pending.isEmpty() && loaded.isEmpty() && retries.isEmpty() && inFlight == 0) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void addTickets() {
+        int added = 0;
+        while (added < ticketsPerTick && !loaded.isEmpty()) {
+            QueuedChunk entry = loaded.pollFirst();
+            AnchorLoadProgress progress = entry.progress();
+            if (progress.isCancelled() || progress.isTicketed(entry.index())) {
+                continue;
+            }
+            int index = entry.index();
+            ticketIndex.acquire(progress.getWorldId(), progress.chunkX(index), progress.chunkZ(index));
+            progress.markTicketed(index);
+            finishIfSettled(progress);
+            added++;
+        }
+    }
+
+    private void requestChunks() {
+        while (inFlight < maxInFlight && !retries.isEmpty()) {
+            QueuedChunk retry = retries.pollFirst();
+            if (!retry.progress().isCancelled() && !retry.progress().isTicketed(retry.index())) {
+                requestChunk(retry.progress(), retry.index());
+            }
+        }
+
+        while (inFlight < maxInFlight && !pending.isEmpty()) {
+            AnchorLoadProgress progress = pending.peekFirst();
+            if (!progress.hasMoreRequests()) {
+                pending.pollFirst();
+                continue;
+            }
+            requestChunk(progress, progress.nextRequest());
+        }
+    }
+
+    private void requestChunk(AnchorLoadProgress progress, int index) {
+        if (ticketIndex.isTicketed(progress.getWorldId(), progress.chunkX(index), progress.chunkZ(index))) {
+            loaded.addLast(new QueuedChunk(progress, index));
+            return;
+        }
+
+        inFlight++;
+        World world = progress.getWorld();
+        int chunkX = progress.chunkX(index);
+        int chunkZ = progress.chunkZ(index);
+        // The request is issued from the chunk's region and its result handed back to the global thread
+        scheduler.runAtChunk(world, chunkX, chunkZ, () -> world.getChunkAtAsync(chunkX, chunkZ).whenComplete((chunk, error) ->
+                scheduler.executeGlobal(() -> onChunkLoaded(progress, index, chunk != null, error))));
+    }
+
+    private void onChunkLoaded(AnchorLoadProgress progress, int index, boolean success, Throwable error) {
+        inFlight--;
+        if (progress.isCancelled()) {
+            return;
+        }
+        if (error != null || !success) {
+            onChunkFailed(progress, index, error);
+            return;
+        }
+        loaded.addLast(new QueuedChunk(progress, index));
+        ensureRunning();
+    }
+
+    private void onChunkFailed(AnchorLoadProgress progress, int index, Throwable error) {
+        int attempts = progress.recordFailedAttempt(index);
+        String chunk = "chunk " + progress.chunkX(index) + ", " + progress.chunkZ(index) + " in world '" + progress.getWorld().getName() + "'";
+        String reason = error != null ? ": " + error.getMessage() : "";
+        if (attempts >= maxLoadAttempts) {
+            plugin.getLogger().warning("Giving up on " + chunk + " after " + attempts + " failed loads" + reason);
+            progress.markFailed();
+            finishIfSettled(progress);
+            return;
+        }
+
+        long delay = RETRY_DELAY_TICKS << (attempts - 1);
+        plugin.getLogger().warning("Failed to load " + chunk + " (attempt " + attempts + " of " + maxLoadAttempts + "), retrying in " + delay + " ticks" + reason);
+        waitingRetries++;
+        scheduler.runGlobalLater(() -> {
+            waitingRetries--;
+            if (!stopped && !progress.isCancelled()) {
+                retries.addLast(new QueuedChunk(progress, index));
+                ensureRunning();
+            }
+        }, delay);
+    }
+
+    private void finishIfSettled(AnchorLoadProgress progress) {
+        AnchorChunksLoadedEvent event = progress.takeLoadEvent();
+        if (event == null) {
+            return;
+        }
+        metrics.recordAnchorLoad(System.nanoTime() - progress.getLoadStart());
+        event.end();
+        if (event.shouldCommit()) {
+            event.loadedChunks = progress.getLoadedChunks();
+            event.failedChunks = progress.getFailedChunks();
+            event.commit();
+        }
+    }
+}
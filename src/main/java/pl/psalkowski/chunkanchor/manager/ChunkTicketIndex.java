@@ -0,0 +1,143 @@
+package pl.psalkowski.chunkanchor.manager;
+
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import pl.psalkowski.chunkanchor.scheduler.TaskScheduler;
+import pl.psalkowski.chunkanchor.util.LongCountMap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Reference counts are kept on the global thread; the tickets themselves are added and removed on
+ * the thread that owns each chunk.
+ */
+public class ChunkTicketIndex {
+
+    private static final int COORD_BITS = 22;
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+
+    private final Plugin plugin;
+    private final TaskScheduler scheduler;
+    private final LongCountMap references = new LongCountMap(1024);
+    private final Map<UUID, Integer> worldIds = new ConcurrentHashMap<>();
+    // Indexed by world id; an unloaded world's slot is null until it loads again and keeps its id
+    private final List<World> worlds = new CopyOnWriteArrayList<>();
+    private volatile int[] worldChunkCounts = new int[4];
+    private long ticketsAdded;
+    private long ticketsRemoved;
+
+    public ChunkTicketIndex(Plugin plugin, TaskScheduler scheduler) {
+        this.plugin = plugin;
+        this.scheduler = scheduler;
+    }
+
+    public static long pack(int worldId, int chunkX, int chunkZ) {
+        return ((long) worldId << (COORD_BITS * 2)) | ((chunkX & COORD_MASK) << COORD_BITS) | (chunkZ & COORD_MASK);
+    }
+
+    public int worldId(World world) {
+        Integer id = worldIds.get(world.getUID());
+        if (id == null) {
+            id = worlds.size();
+            if (id >= worldChunkCounts.length) {
+                worldChunkCounts = Arrays.copyOf(worldChunkCounts, worldChunkCounts.length * 2);
+            }
+            worlds.add(world);
+            worldIds.put(world.getUID(), id);
+        } else if (worlds.get(id) != world) {
+            worlds.set(id, world);
+        }
+        return id;
+    }
+
+    public boolean acquire(int worldId, int chunkX, int chunkZ) {
+        if (references.increment(pack(worldId, chunkX, chunkZ)) != 1) {
+            return false;
+        }
+        World world = worlds.get(worldId);
+        scheduler.runAtChunk(world, chunkX, chunkZ, () -> world.addPluginChunkTicket(chunkX, chunkZ, plugin));
+        worldChunkCounts[worldId]++;
+        ticketsAdded++;
+        return true;
+    }
+
+    public boolean release(int worldId, int chunkX, int chunkZ) {
+        long key = pack(worldId, chunkX, chunkZ);
+        if (!references.contains(key) || references.decrement(key) != 0) {
+            return false;
+        }
+        World world = worlds.get(worldId);
+        if (world != null) {
+            scheduler.runAtChunk(world, chunkX, chunkZ, () -> world.removePluginChunkTicket(chunkX, chunkZ, plugin));
+        }
+        worldChunkCounts[worldId]--;
+        ticketsRemoved++;
+        return true;
+    }
+
+    public boolean isTicketed(int worldId, int chunkX, int chunkZ) {
+        return references.contains(pack(worldId, chunkX, chunkZ));
+    }
+
+    public int getReferenceCount(World world, int chunkX, int chunkZ) {
+        Integer id = worldIds.get(world.getUID());
+        return id == null ? 0 : references.get(pack(id, chunkX, chunkZ));
+    }
+
+    public boolean isTicketed(World world, int chunkX, int chunkZ) {
+        return getReferenceCount(world, chunkX, chunkZ) > 0;
+    }
+
+    public int getTicketedChunkCount() {
+        return references.size();
+    }
+
+    public int getTicketedChunkCount(World world) {
+        Integer id = worldIds.get(world.getUID());
+        return id == null ? 0 : worldChunkCounts[id];
+    }
+
+    public List<World> getWorlds() {
+        return worlds.stream().filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Drops the reference to an unloaded world once its anchors have released their tickets, so the
+     * index neither keeps the world in memory nor touches it again.
+     */
+    public void forgetWorld(World world) {
+        Integer id = worldIds.get(world.getUID());
+        if (id != null && worlds.get(id) == world) {
+            worlds.set(id, null);
+        }
+    }
+
+    public long getTicketsAdded() {
+        return ticketsAdded;
+    }
+
+    public long getTicketsRemoved() {
+        return ticketsRemoved;
+    }
+
+    /**
+     * Called while the plugin is being disabled, when it can no longer schedule tasks, so the tickets
+     * are removed directly.
+     */
+    public void releaseAll() {
+        for (World world : worlds) {
+            if (world != null) {
+                world.removePluginChunkTickets(plugin);
+            }
+        }
+        ticketsRemoved += references.size();
+        references.clear();
+        Arrays.fill(worldChunkCounts, 0);
+    }
+}
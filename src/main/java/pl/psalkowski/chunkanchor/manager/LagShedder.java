@@ -0,0 +1,175 @@
+package pl.psalkowski.chunkanchor.manager;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+import pl.psalkowski.chunkanchor.metrics.LagSheddingEvent;
+import pl.psalkowski.chunkanchor.model.AnchorKey;
+import pl.psalkowski.chunkanchor.scheduler.TaskHandle;
+import pl.psalkowski.chunkanchor.scheduler.TaskScheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Suspends the lowest-priority anchors while the server's average tick time stays above
+ * {@code lag-shedding.shed-mspt}, and brings them back one step at a time once it stays below
+ * {@code lag-shedding.restore-mspt}. Between the two thresholds nothing changes, and every step needs
+ * a fresh sustained window, so the controller does not oscillate around a single threshold.
+ */
+public class LagShedder {
+
+    private static final int MAX_DECISIONS = 32;
+    private static final int MAX_LOGGED_NAMES = 5;
+
+    public enum Action {
+        SHED,
+        RESTORE
+    }
+
+    public record Decision(long timeMillis, Action action, double mspt, List<AnchorKey> anchors) {
+    }
+
+    private final Plugin plugin;
+    private final TaskScheduler scheduler;
+    private final ChunkLoadManager chunkLoadManager;
+    private final boolean enabled;
+    private final double shedMspt;
+    private final double restoreMspt;
+    private final long checkIntervalTicks;
+    private final int sustainChecks;
+    private final int anchorsPerStep;
+    private final Deque<Decision> decisions = new ArrayDeque<>();
+    private int checksAbove;
+    private int checksBelow;
+    private volatile double lastMspt;
+    private TaskHandle task;
+
+    public LagShedder(Plugin plugin, FileConfiguration config, TaskScheduler scheduler, ChunkLoadManager chunkLoadManager) {
+        this.plugin = plugin;
+        this.scheduler = scheduler;
+        this.chunkLoadManager = chunkLoadManager;
+        this.enabled = config.getBoolean("lag-shedding.enabled", false);
+        this.shedMspt = config.getDouble("lag-shedding.shed-mspt", 50.0);
+        this.restoreMspt = Math.min(shedMspt, config.getDouble("lag-shedding.restore-mspt", 40.0));
+        this.checkIntervalTicks = Math.max(1, config.getLong("lag-shedding.check-interval-ticks", 20));
+        long sustainTicks = Math.max(0, config.getLong("lag-shedding.sustain-seconds", 10)) * 20L;
+        this.sustainChecks = (int) Math.max(1, sustainTicks / checkIntervalTicks);
+        this.anchorsPerStep = Math.max(1, config.getInt("lag-shedding.anchors-per-step", 4));
+    }
+
+    public void start() {
+        if (enabled && task == null) {
+            task = scheduler.runGlobalTimer(this::check, checkIntervalTicks, checkIntervalTicks);
+        }
+    }
+
+    public void cancel() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        checksAbove = 0;
+        checksBelow = 0;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getShedMspt() {
+        return shedMspt;
+    }
+
+    public double getRestoreMspt() {
+        return restoreMspt;
+    }
+
+    /**
+     * Average tick time seen by the last check, in milliseconds.
+     */
+    public double getLastMspt() {
+        return lastMspt;
+    }
+
+    public int getShedAnchorCount() {
+        return chunkLoadManager.getShedAnchorCount();
+    }
+
+    /**
+     * Most recent shedding decisions, oldest first.
+     */
+    public List<Decision> getRecentDecisions() {
+        synchronized (decisions) {
+            return List.copyOf(decisions);
+        }
+    }
+
+    private void check() {
+        lastMspt = scheduler.getAverageTickTime();
+        if (lastMspt > shedMspt) {
+            checksBelow = 0;
+            if (++checksAbove >= sustainChecks) {
+                checksAbove = 0;
+                shed();
+            }
+        } else if (lastMspt < restoreMspt && chunkLoadManager.getShedAnchorCount() > 0) {
+            checksAbove = 0;
+            if (++checksBelow >= sustainChecks) {
+                checksBelow = 0;
+                restore();
+            }
+        } else {
+            checksAbove = 0;
+            checksBelow = 0;
+        }
+    }
+
+    private void shed() {
+        List<AnchorKey> shed = chunkLoadManager.shedLowestPriority(anchorsPerStep);
+        if (shed.isEmpty()) {
+            return;
+        }
+        record(Action.SHED, shed);
+        plugin.getLogger().warning(String.format("Tick time %.1f ms above %.1f ms: suspended %d lowest-priority anchors (%s), %d suspended for lag",
+                lastMspt, shedMspt, shed.size(), names(shed), chunkLoadManager.getShedAnchorCount()));
+    }
+
+    private void restore() {
+        List<AnchorKey> restored = chunkLoadManager.restoreShedAnchors(anchorsPerStep);
+        record(Action.RESTORE, restored);
+        plugin.getLogger().info(String.format("Tick time %.1f ms below %.1f ms: restored %d anchors (%s), %d still suspended for lag",
+                lastMspt, restoreMspt, restored.size(), names(restored), chunkLoadManager.getShedAnchorCount()));
+    }
+
+    private void record(Action action, List<AnchorKey> anchors) {
+        synchronized (decisions) {
+            if (decisions.size() == MAX_DECISIONS) {
+                decisions.pollFirst();
+            }
+            decisions.addLast(new Decision(System.currentTimeMillis(), action, lastMspt, List.copyOf(anchors)));
+        }
+
+        LagSheddingEvent event = new LagSheddingEvent();
+        if (event.shouldCommit()) {
+            event.action = action.name();
+            event.mspt = lastMspt;
+            event.anchorCount = anchors.size();
+            event.shedAnchors = chunkLoadManager.getShedAnchorCount();
+            event.commit();
+        }
+    }
+
+    private static String names(List<AnchorKey> anchors) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int i = 0; i < Math.min(anchors.size(), MAX_LOGGED_NAMES); i++) {
+            joiner.add(anchors.get(i).name());
+        }
+        if (anchors.size() > MAX_LOGGED_NAMES) {
+            joiner.add("...");
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,223 @@
+package pl.psalkowski.chunkanchor.manager;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+import pl.psalkowski.chunkanchor.model.AnchorKey;
+import pl.psalkowski.chunkanchor.model.LoadSchedule;
+import pl.psalkowski.chunkanchor.scheduler.TaskHandle;
+import pl.psalkowski.chunkanchor.scheduler.TaskScheduler;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads and unloads SCHEDULED anchors as their windows open and close. Anchors are grouped by
+ * schedule and the scheduler only wakes at the next boundary of any group, so the cost of a wake-up
+ * does not depend on the number of anchors. Anchors whose window changed are then reconciled a few
+ * per tick.
+ */
+public class LoadWindowScheduler {
+
+    // Tick-based delays stretch under lag, so re-read the clock at least once a minute
+    private static final long MAX_SLEEP_TICKS = 20L * 60L;
+
+    private static final class Window {
+        private final Set<AnchorKey> anchors = new LinkedHashSet<>();
+        private boolean open;
+    }
+
+    private final Plugin plugin;
+    private final TaskScheduler scheduler;
+    private final ChunkLoadManager chunkLoadManager;
+    private final ZoneId zone;
+    private final LoadSchedule defaultSchedule;
+    private final int transitionsPerTick;
+    private final Map<LoadSchedule, Window> windows = new HashMap<>();
+    private final Map<AnchorKey, LoadSchedule> assigned = new HashMap<>();
+    private final Deque<AnchorKey> transitions = new ArrayDeque<>();
+    private TaskHandle wakeTask;
+    private TaskHandle transitionTask;
+    private boolean rescanPending;
+
+    public LoadWindowScheduler(Plugin plugin, FileConfiguration config, TaskScheduler scheduler, ChunkLoadManager chunkLoadManager) {
+        this.plugin = plugin;
+        this.scheduler = scheduler;
+        this.chunkLoadManager = chunkLoadManager;
+        this.zone = parseZone(plugin, config.getString("scheduling.timezone", ""));
+        this.defaultSchedule = parseDefault(plugin, config.getString("scheduling.default-schedule", "* 02:00-08:00"));
+        this.transitionsPerTick = Math.max(1, config.getInt("scheduling.transitions-per-tick", 4));
+    }
+
+    public LoadSchedule getDefaultSchedule() {
+        return defaultSchedule;
+    }
+
+    public LoadSchedule getSchedule(AnchorManager.Anchor anchor) {
+        return anchor.schedule() != null ? anchor.schedule() : defaultSchedule;
+    }
+
+    public boolean isOpen(AnchorManager.Anchor anchor) {
+        LoadSchedule schedule = getSchedule(anchor);
+        return schedule != null && schedule.isActive(LoadSchedule.minuteOfWeek(ZonedDateTime.now(zone)));
+    }
+
+    /**
+     * Minutes until the anchor's window next opens or closes, or -1 if it never changes.
+     */
+    public int getMinutesUntilChange(AnchorManager.Anchor anchor) {
+        LoadSchedule schedule = getSchedule(anchor);
+        return schedule == null ? -1 : schedule.minutesUntilChange(LoadSchedule.minuteOfWeek(ZonedDateTime.now(zone)));
+    }
+
+    public int getScheduledAnchorCount() {
+        return assigned.size();
+    }
+
+    public int getPendingTransitions() {
+        return transitions.size();
+    }
+
+    void register(AnchorKey key, AnchorManager.Anchor anchor) {
+        LoadSchedule schedule = getSchedule(anchor);
+        LoadSchedule previous = assigned.get(key);
+        if (schedule == previous) {
+            return;
+        }
+        unregister(key);
+        if (schedule == null) {
+            return;
+        }
+        assigned.put(key, schedule);
+        Window window = windows.get(schedule);
+        if (window == null) {
+            window = new Window();
+            windows.put(schedule, window);
+            rescanSoon();
+        }
+        window.anchors.add(key);
+    }
+
+    void unregister(AnchorKey key) {
+        LoadSchedule schedule = assigned.remove(key);
+        if (schedule == null) {
+            return;
+        }
+        Window window = windows.get(schedule);
+        window.anchors.remove(key);
+        if (window.anchors.isEmpty()) {
+            windows.remove(schedule);
+        }
+    }
+
+    public void cancel() {
+        if (wakeTask != null) {
+            wakeTask.cancel();
+            wakeTask = null;
+        }
+        if (transitionTask != null) {
+            transitionTask.cancel();
+            transitionTask = null;
+        }
+        rescanPending = false;
+        windows.clear();
+        assigned.clear();
+        transitions.clear();
+    }
+
+    /**
+     * New windows start closed; the next wake-up opens them and spreads their anchors over ticks.
+     */
+    private void rescanSoon() {
+        if (rescanPending) {
+            return;
+        }
+        rescanPending = true;
+        if (wakeTask != null) {
+            wakeTask.cancel();
+        }
+        wakeTask = scheduler.runGlobalLater(this::wake, 1L);
+    }
+
+    private void wake() {
+        wakeTask = null;
+        rescanPending = false;
+        ZonedDateTime now = ZonedDateTime.now(zone);
+        int minute = LoadSchedule.minuteOfWeek(now);
+
+        int nextChange = Integer.MAX_VALUE;
+        int opened = 0;
+        int closed = 0;
+        for (Map.Entry<LoadSchedule, Window> entry : windows.entrySet()) {
+            Window window = entry.getValue();
+            boolean open = entry.getKey().isActive(minute);
+            if (open != window.open) {
+                window.open = open;
+                transitions.addAll(window.anchors);
+                if (open) {
+                    opened += window.anchors.size();
+                } else {
+                    closed += window.anchors.size();
+                }
+            }
+            int until = entry.getKey().minutesUntilChange(minute);
+            if (until > 0) {
+                nextChange = Math.min(nextChange, until);
+            }
+        }
+
+        if (opened > 0 || closed > 0) {
+            plugin.getLogger().info("Load windows changed: " + opened + " SCHEDULED anchors to load, " + closed + " to unload");
+        }
+        if (!transitions.isEmpty() && transitionTask == null) {
+            transitionTask = scheduler.runGlobalTimer(this::tick, 1L, 1L);
+        }
+        if (nextChange != Integer.MAX_VALUE) {
+            long delayTicks = (nextChange * 60L - now.getSecond()) * 20L;
+            wakeTask = scheduler.runGlobalLater(this::wake, Math.max(1L, Math.min(delayTicks, MAX_SLEEP_TICKS)));
+        }
+    }
+
+    private void tick() {
+        for (int i = 0; i < transitionsPerTick && !transitions.isEmpty(); i++) {
+            AnchorKey key = transitions.pollFirst();
+            if (!chunkLoadManager.applyLoadWindow(key)) {
+                unregister(key);
+            }
+        }
+        if (transitions.isEmpty()) {
+            transitionTask.cancel();
+            transitionTask = null;
+        }
+    }
+
+    private static ZoneId parseZone(Plugin plugin, String value) {
+        if (value == null || value.isBlank()) {
+            return ZoneId.systemDefault();
+        }
+        try {
+            return ZoneId.of(value);
+        } catch (DateTimeException e) {
+            plugin.getLogger().warning("Invalid scheduling.timezone in config: " + value + ", using the server time zone");
+            return ZoneId.systemDefault();
+        }
+    }
+
+    private static LoadSchedule parseDefault(Plugin plugin, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LoadSchedule.parse(value);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid scheduling.default-schedule in config: " + e.getMessage());
+            return null;
+        }
+    }
+}
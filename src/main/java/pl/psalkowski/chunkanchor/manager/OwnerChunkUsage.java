@@ -0,0 +1,67 @@
+package pl.psalkowski.chunkanchor.manager;
+
+import pl.psalkowski.chunkanchor.model.AnchorShape;
+import pl.psalkowski.chunkanchor.util.LongCountMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Distinct chunks covered by each owner's enabled anchors. Every anchor adds a reference to each
+ * chunk in its area, so overlapping anchors of the same owner only count shared chunks once.
+ */
+public class OwnerChunkUsage {
+
+    private final Map<UUID, LongCountMap> owners = new HashMap<>();
+    private final Map<String, Integer> worldIds = new HashMap<>();
+
+    public int getUsage(UUID owner) {
+        LongCountMap chunks = owners.get(owner);
+        return chunks == null ? 0 : chunks.size();
+    }
+
+    /**
+     * Chunks the owner's usage would grow by if {@code anchor} were enabled with {@code shape}.
+     */
+    public int cost(UUID owner, AnchorManager.Anchor anchor, AnchorShape shape) {
+        LongCountMap chunks = owners.get(owner);
+        if (chunks == null) {
+            return shape.getChunkCount();
+        }
+        int worldId = worldId(anchor.world());
+        int cost = 0;
+        for (int i = 0; i < shape.getChunkCount(); i++) {
+            if (!chunks.contains(ChunkTicketIndex.pack(worldId, anchor.chunkX() + shape.dx(i), anchor.chunkZ() + shape.dz(i)))) {
+                cost++;
+            }
+        }
+        return cost;
+    }
+
+    void add(UUID owner, AnchorManager.Anchor anchor, AnchorShape shape) {
+        LongCountMap chunks = owners.computeIfAbsent(owner, k -> new LongCountMap());
+        int worldId = worldId(anchor.world());
+        for (int i = 0; i < shape.getChunkCount(); i++) {
+            chunks.increment(ChunkTicketIndex.pack(worldId, anchor.chunkX() + shape.dx(i), anchor.chunkZ() + shape.dz(i)));
+        }
+    }
+
+    void remove(UUID owner, AnchorManager.Anchor anchor, AnchorShape shape) {
+        LongCountMap chunks = owners.get(owner);
+        if (chunks == null) {
+            return;
+        }
+        int worldId = worldId(anchor.world());
+        for (int i = 0; i < shape.getChunkCount(); i++) {
+            chunks.decrement(ChunkTicketIndex.pack(worldId, anchor.chunkX() + shape.dx(i), anchor.chunkZ() + shape.dz(i)));
+        }
+        if (chunks.isEmpty()) {
+            owners.remove(owner);
+        }
+    }
+
+    private int worldId(String world) {
+        return worldIds.computeIfAbsent(world, k -> worldIds.size());
+    }
+}
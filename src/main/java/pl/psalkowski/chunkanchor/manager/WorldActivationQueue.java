@@ -0,0 +1,129 @@
+package pl.psalkowski.chunkanchor.manager;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+import pl.psalkowski.chunkanchor.model.AnchorKey;
+import pl.psalkowski.chunkanchor.scheduler.TaskHandle;
+import pl.psalkowski.chunkanchor.scheduler.TaskScheduler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Anchors whose world is not loaded, grouped by world name. An anchor is parked once instead of
+ * retrying the world lookup on every scan, and the whole group is activated a few anchors per tick
+ * when its world loads.
+ */
+public class WorldActivationQueue {
+
+    private final Plugin plugin;
+    private final TaskScheduler scheduler;
+    private final ChunkLoadManager chunkLoadManager;
+    private final int activationsPerTick;
+    private final Map<String, Set<AnchorKey>> waiting = new LinkedHashMap<>();
+    private final Map<AnchorKey, String> worlds = new HashMap<>();
+    private final Deque<AnchorKey> activations = new ArrayDeque<>();
+    private TaskHandle task;
+
+    public WorldActivationQueue(Plugin plugin, FileConfiguration config, TaskScheduler scheduler, ChunkLoadManager chunkLoadManager) {
+        this.plugin = plugin;
+        this.scheduler = scheduler;
+        this.chunkLoadManager = chunkLoadManager;
+        this.activationsPerTick = Math.max(1, config.getInt("chunk-loading.world-activations-per-tick", 4));
+    }
+
+    public synchronized int getWaitingAnchorCount() {
+        return worlds.size();
+    }
+
+    /**
+     * Number of waiting anchors per world name.
+     */
+    public synchronized Map<String, Integer> getWaitingWorlds() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        waiting.forEach((world, keys) -> counts.put(world, keys.size()));
+        return counts;
+    }
+
+    public synchronized int getPendingActivations() {
+        return activations.size();
+    }
+
+    /**
+     * Returns true if this is the first anchor waiting for the world.
+     */
+    synchronized boolean park(AnchorKey key, String world) {
+        if (worlds.containsKey(key)) {
+            return false;
+        }
+        Set<AnchorKey> keys = waiting.get(world);
+        boolean first = keys == null;
+        if (first) {
+            keys = new LinkedHashSet<>();
+            waiting.put(world, keys);
+        }
+        keys.add(key);
+        worlds.put(key, world);
+        return first;
+    }
+
+    synchronized void remove(AnchorKey key) {
+        String world = worlds.remove(key);
+        if (world == null) {
+            return;
+        }
+        Set<AnchorKey> keys = waiting.get(world);
+        keys.remove(key);
+        if (keys.isEmpty()) {
+            waiting.remove(world);
+        }
+    }
+
+    synchronized void onWorldLoad(String world) {
+        Set<AnchorKey> keys = waiting.remove(world);
+        if (keys == null) {
+            return;
+        }
+        keys.forEach(worlds::remove);
+        activations.addAll(keys);
+        plugin.getLogger().info("World '" + world + "' loaded: activating " + keys.size() + " waiting anchors");
+        if (task == null) {
+            task = scheduler.runGlobalTimer(this::tick, 1L, 1L);
+        }
+    }
+
+    public synchronized void cancel() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        waiting.clear();
+        worlds.clear();
+        activations.clear();
+    }
+
+    private void tick() {
+        for (int i = 0; i < activationsPerTick; i++) {
+            AnchorKey key = nextActivation();
+            if (key == null) {
+                return;
+            }
+            // Outside this queue's lock: the manager takes its own lock and may call back into park()
+            chunkLoadManager.activateWaitingAnchor(key);
+        }
+    }
+
+    private synchronized AnchorKey nextActivation() {
+        AnchorKey key = activations.pollFirst();
+        if (key == null && task != null) {
+            task.cancel();
+            task = null;
+        }
+        return key;
+    }
+}
@@ -0,0 +1,34 @@
+package pl.psalkowski.chunkanchor.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("chunkanchor.AnchorChunksLoaded")
+@Label("Anchor Chunks Loaded")
+@Category("ChunkAnchor")
+@Description("Chunks of an anchor were loaded, from queueing until every chunk was ticketed or gave up")
+@StackTrace(false)
+public class AnchorChunksLoadedEvent extends Event {
+
+    @Label("Owner")
+    public String owner;
+
+    @Label("Anchor")
+    public String anchorName;
+
+    @Label("World")
+    public String world;
+
+    @Label("Chunks")
+    public int chunkCount;
+
+    @Label("Loaded Chunks")
+    public int loadedChunks;
+
+    @Label("Failed Chunks")
+    public int failedChunks;
+}
@@ -0,0 +1,28 @@
+package pl.psalkowski.chunkanchor.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("chunkanchor.AnchorChunksUnloaded")
+@Label("Anchor Chunks Unloaded")
+@Category("ChunkAnchor")
+@Description("Chunk tickets of an anchor were released")
+@StackTrace(false)
+public class AnchorChunksUnloadedEvent extends Event {
+
+    @Label("Owner")
+    public String owner;
+
+    @Label("Anchor")
+    public String anchorName;
+
+    @Label("World")
+    public String world;
+
+    @Label("Chunks")
+    public int chunkCount;
+}
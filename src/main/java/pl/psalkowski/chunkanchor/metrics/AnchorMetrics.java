@@ -0,0 +1,52 @@
+package pl.psalkowski.chunkanchor.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime counters for chunk loading and anchor persistence.
+ */
+public class AnchorMetrics {
+
+    private final LatencyHistogram anchorLoadLatency = new LatencyHistogram();
+    private final LatencyHistogram anchorUnloadLatency = new LatencyHistogram();
+    private final LatencyHistogram saveLatency = new LatencyHistogram();
+    private final LongAdder savedBytes = new LongAdder();
+    private final LongAdder saveFailures = new LongAdder();
+
+    public void recordAnchorLoad(long nanos) {
+        anchorLoadLatency.record(nanos);
+    }
+
+    public void recordAnchorUnload(long nanos) {
+        anchorUnloadLatency.record(nanos);
+    }
+
+    public void recordSave(long nanos, long bytes) {
+        saveLatency.record(nanos);
+        savedBytes.add(bytes);
+    }
+
+    public void recordSaveFailure() {
+        saveFailures.increment();
+    }
+
+    public LatencyHistogram getAnchorLoadLatency() {
+        return anchorLoadLatency;
+    }
+
+    public LatencyHistogram getAnchorUnloadLatency() {
+        return anchorUnloadLatency;
+    }
+
+    public LatencyHistogram getSaveLatency() {
+        return saveLatency;
+    }
+
+    public long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+    public long getSaveFailures() {
+        return saveFailures.sum();
+    }
+}
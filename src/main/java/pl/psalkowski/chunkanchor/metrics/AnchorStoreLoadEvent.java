@@ -0,0 +1,25 @@
+package pl.psalkowski.chunkanchor.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("chunkanchor.AnchorStoreLoad")
+@Label("Anchor Store Load")
+@Category("ChunkAnchor")
+@Description("Anchors were read from storage")
+@StackTrace(false)
+public class AnchorStoreLoadEvent extends Event {
+
+    @Label("Backend")
+    public String backend;
+
+    @Label("Owners")
+    public int ownerCount;
+
+    @Label("Anchors")
+    public int anchorCount;
+}
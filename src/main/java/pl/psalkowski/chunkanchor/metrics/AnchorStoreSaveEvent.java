@@ -0,0 +1,30 @@
+package pl.psalkowski.chunkanchor.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("chunkanchor.AnchorStoreSave")
+@Label("Anchor Store Save")
+@Category("ChunkAnchor")
+@Description("A batch of anchor changes was written to storage")
+@StackTrace(false)
+public class AnchorStoreSaveEvent extends Event {
+
+    @Label("Backend")
+    public String backend;
+
+    @Label("Changes")
+    public int changeCount;
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytes;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
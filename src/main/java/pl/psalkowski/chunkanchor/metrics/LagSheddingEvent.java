@@ -0,0 +1,28 @@
+package pl.psalkowski.chunkanchor.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("chunkanchor.LagShedding")
+@Label("Lag Shedding")
+@Category("ChunkAnchor")
+@Description("Anchors were suspended or restored because of the server's tick time")
+@StackTrace(false)
+public class LagSheddingEvent extends Event {
+
+    @Label("Action")
+    public String action;
+
+    @Label("MSPT")
+    public double mspt;
+
+    @Label("Anchors")
+    public int anchorCount;
+
+    @Label("Suspended For Lag")
+    public int shedAnchors;
+}
@@ -0,0 +1,6 @@
+package pl.psalkowski.chunkanchor.model;
+
+import java.util.UUID;
+
+public record AnchorKey(UUID owner, String name) {
+}
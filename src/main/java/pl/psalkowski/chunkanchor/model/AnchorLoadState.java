@@ -0,0 +1,14 @@
+package pl.psalkowski.chunkanchor.model;
+
+public enum AnchorLoadState {
+    UNLOADED,
+    PENDING,
+    LOADED,
+    /**
+     * Every chunk was requested, but some could not be loaded after all retries.
+     */
+    FAILED,
+    SUSPENDED,
+    SHED,
+    WAITING_FOR_WORLD
+}
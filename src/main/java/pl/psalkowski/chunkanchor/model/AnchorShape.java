@@ -0,0 +1,300 @@
+package pl.psalkowski.chunkanchor.model;
+
+import pl.psalkowski.chunkanchor.util.ChunkCoords;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Set of chunk offsets, relative to the anchor's chunk, that an anchor keeps loaded. Offsets are kept
+ * sorted by {@link ChunkCoords#key}, so every shape supports index lookups by binary search.
+ * Generated shapes up to {@link #INTERN_MAX_EXTENT} are interned and shared between anchors; no shape
+ * may reach further than {@link #MAX_EXTENT} chunks from the anchor.
+ */
+public final class AnchorShape {
+
+    public enum Type {
+        SQUARE,
+        RECTANGLE,
+        CIRCLE,
+        LIST
+    }
+
+    public static final int MAX_EXTENT = 128;
+    public static final int MAX_CHUNKS = (2 * MAX_EXTENT + 1) * (2 * MAX_EXTENT + 1);
+
+    private static final int INTERN_MAX_EXTENT = 16;
+    private static final Map<String, AnchorShape> INTERNED = new ConcurrentHashMap<>();
+
+    private final Type type;
+    private final int sizeX;
+    private final int sizeZ;
+    private final long[] offsets;
+    private final int minDx;
+    private final int maxDx;
+    private final int minDz;
+    private final int maxDz;
+
+    private AnchorShape(Type type, int sizeX, int sizeZ, long[] offsets) {
+        this.type = type;
+        this.sizeX = sizeX;
+        this.sizeZ = sizeZ;
+        this.offsets = offsets;
+        int minX = 0;
+        int maxX = 0;
+        int minZ = 0;
+        int maxZ = 0;
+        for (long offset : offsets) {
+            minX = Math.min(minX, ChunkCoords.x(offset));
+            maxX = Math.max(maxX, ChunkCoords.x(offset));
+            minZ = Math.min(minZ, ChunkCoords.z(offset));
+            maxZ = Math.max(maxZ, ChunkCoords.z(offset));
+        }
+        this.minDx = minX;
+        this.maxDx = maxX;
+        this.minDz = minZ;
+        this.maxDz = maxZ;
+    }
+
+    public static AnchorShape square(int radius) {
+        checkSize(radius, 0, MAX_EXTENT);
+        return intern("square:" + radius, radius, () -> new AnchorShape(Type.SQUARE, radius, radius,
+                box(-radius, radius, -radius, radius)));
+    }
+
+    /**
+     * Rectangle of {@code width} by {@code length} chunks centred on the anchor's chunk; with an even
+     * side the extra chunk is on the positive side.
+     */
+    public static AnchorShape rectangle(int width, int length) {
+        checkSize(width, 1, 2 * MAX_EXTENT + 1);
+        checkSize(length, 1, 2 * MAX_EXTENT + 1);
+        return intern("rectangle:" + width + "x" + length, Math.max(width, length) / 2, () -> new AnchorShape(Type.RECTANGLE, width, length,
+                box(-(width - 1) / 2, width / 2, -(length - 1) / 2, length / 2)));
+    }
+
+    public static AnchorShape circle(int radius) {
+        checkSize(radius, 0, MAX_EXTENT);
+        return intern("circle:" + radius, radius, () -> {
+            long[] box = box(-radius, radius, -radius, radius);
+            long[] inside = new long[box.length];
+            int count = 0;
+            for (long offset : box) {
+                int dx = ChunkCoords.x(offset);
+                int dz = ChunkCoords.z(offset);
+                if (dx * dx + dz * dz <= radius * (radius + 1)) {
+                    inside[count++] = offset;
+                }
+            }
+            return new AnchorShape(Type.CIRCLE, radius, radius, Arrays.copyOf(inside, count));
+        });
+    }
+
+    public static AnchorShape list(long[] chunkOffsets) {
+        checkChunkCount(chunkOffsets.length);
+        for (long offset : chunkOffsets) {
+            int dx = ChunkCoords.x(offset);
+            int dz = ChunkCoords.z(offset);
+            if (Math.abs(dx) > MAX_EXTENT || Math.abs(dz) > MAX_EXTENT) {
+                throw new IllegalArgumentException("Chunk " + dx + ", " + dz + " is more than " + MAX_EXTENT + " chunks from the anchor");
+            }
+        }
+        long[] sorted = Arrays.stream(chunkOffsets).sorted().distinct().toArray();
+        if (sorted.length == 0) {
+            throw new IllegalArgumentException("A chunk list needs at least one chunk");
+        }
+        return new AnchorShape(Type.LIST, 0, 0, sorted);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    public int getSizeZ() {
+        return sizeZ;
+    }
+
+    public int getChunkCount() {
+        return offsets.length;
+    }
+
+    public int dx(int index) {
+        return ChunkCoords.x(offsets[index]);
+    }
+
+    public int dz(int index) {
+        return ChunkCoords.z(offsets[index]);
+    }
+
+    public int indexOf(int dx, int dz) {
+        if (dx < minDx || dx > maxDx || dz < minDz || dz > maxDz) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(offsets, ChunkCoords.key(dx, dz));
+        return index < 0 ? -1 : index;
+    }
+
+    public boolean contains(int dx, int dz) {
+        return indexOf(dx, dz) >= 0;
+    }
+
+    public int getMinDx() {
+        return minDx;
+    }
+
+    public int getMaxDx() {
+        return maxDx;
+    }
+
+    public int getMinDz() {
+        return minDz;
+    }
+
+    public int getMaxDz() {
+        return maxDz;
+    }
+
+    /**
+     * Largest distance, in chunks, from the anchor's chunk to any chunk of the shape along either axis.
+     */
+    public int getExtent() {
+        return Math.max(Math.max(-minDx, maxDx), Math.max(-minDz, maxDz));
+    }
+
+    public boolean isBox() {
+        return type == Type.SQUARE || type == Type.RECTANGLE;
+    }
+
+    public AnchorShape withChunk(int dx, int dz) {
+        if (contains(dx, dz)) {
+            return this;
+        }
+        long[] extended = Arrays.copyOf(offsets, offsets.length + 1);
+        extended[offsets.length] = ChunkCoords.key(dx, dz);
+        return list(extended);
+    }
+
+    public AnchorShape withoutChunk(int dx, int dz) {
+        int index = indexOf(dx, dz);
+        if (index < 0) {
+            return this;
+        }
+        long[] reduced = new long[offsets.length - 1];
+        System.arraycopy(offsets, 0, reduced, 0, index);
+        System.arraycopy(offsets, index + 1, reduced, index, offsets.length - index - 1);
+        return list(reduced);
+    }
+
+    public String describe() {
+        return switch (type) {
+            case SQUARE -> "square, radius " + sizeX + " (" + (sizeX * 2 + 1) + "x" + (sizeX * 2 + 1) + ")";
+            case RECTANGLE -> "rectangle " + sizeX + "x" + sizeZ;
+            case CIRCLE -> "circle, radius " + sizeX;
+            case LIST -> "list";
+        } + ", " + offsets.length + " chunks";
+    }
+
+    public String encode() {
+        return switch (type) {
+            case SQUARE, CIRCLE -> type.name().toLowerCase(Locale.ROOT) + ":" + sizeX;
+            case RECTANGLE -> "rectangle:" + sizeX + "x" + sizeZ;
+            case LIST -> {
+                StringJoiner joiner = new StringJoiner(";", "list:", "");
+                for (long offset : offsets) {
+                    joiner.add(ChunkCoords.x(offset) + "," + ChunkCoords.z(offset));
+                }
+                yield joiner.toString();
+            }
+        };
+    }
+
+    public static AnchorShape parse(String value) {
+        int separator = value.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid shape: " + value);
+        }
+        String arguments = value.substring(separator + 1);
+        try {
+            return switch (value.substring(0, separator).toLowerCase(Locale.ROOT)) {
+                case "square" -> square(Integer.parseInt(arguments));
+                case "circle" -> circle(Integer.parseInt(arguments));
+                case "rectangle" -> {
+                    int x = arguments.indexOf('x');
+                    yield rectangle(Integer.parseInt(arguments.substring(0, x)), Integer.parseInt(arguments.substring(x + 1)));
+                }
+                case "list" -> {
+                    String[] chunks = arguments.split(";");
+                    checkChunkCount(chunks.length);
+                    long[] parsed = new long[chunks.length];
+                    for (int i = 0; i < chunks.length; i++) {
+                        int comma = chunks[i].indexOf(',');
+                        parsed[i] = ChunkCoords.key(Integer.parseInt(chunks[i].substring(0, comma).trim()),
+                                Integer.parseInt(chunks[i].substring(comma + 1).trim()));
+                    }
+                    yield list(parsed);
+                }
+                default -> throw new IllegalArgumentException("Unknown shape type: " + value);
+            };
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid shape: " + value, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof AnchorShape shape
+                && type == shape.type && sizeX == shape.sizeX && sizeZ == shape.sizeZ && Arrays.equals(offsets, shape.offsets);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * type.hashCode() + sizeX) + sizeZ) + Arrays.hashCode(offsets);
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+
+    private static long[] box(int minDx, int maxDx, int minDz, int maxDz) {
+        long[] offsets = new long[(maxDx - minDx + 1) * (maxDz - minDz + 1)];
+        int count = 0;
+        for (int dx = minDx; dx <= maxDx; dx++) {
+            for (int dz = minDz; dz <= maxDz; dz++) {
+                offsets[count++] = ChunkCoords.key(dx, dz);
+            }
+        }
+        Arrays.sort(offsets);
+        return offsets;
+    }
+
+    private static AnchorShape intern(String key, int extent, Supplier<AnchorShape> factory) {
+        if (extent > INTERN_MAX_EXTENT) {
+            return factory.get();
+        }
+        return INTERNED.computeIfAbsent(key, k -> factory.get());
+    }
+
+    private static void checkChunkCount(int count) {
+        if (count > MAX_CHUNKS) {
+            throw new IllegalArgumentException("A shape may hold at most " + MAX_CHUNKS + " chunks, got " + count);
+        }
+    }
+
+    private static void checkSize(int size, int min, int max) {
+        if (size < min) {
+            throw new IllegalArgumentException("Shape size must be at least " + min + ", got " + size);
+        }
+        if (size > max) {
+            throw new IllegalArgumentException("Shape size must be at most " + max + ", got " + size);
+        }
+    }
+}
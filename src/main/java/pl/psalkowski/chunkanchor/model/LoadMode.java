@@ -3,5 +3,7 @@ package pl.psalkowski.chunkanchor.model;
 public enum LoadMode {
     DEFAULT,
     ALWAYS,
-    PLAYER_ONLINE
+    PLAYER_ONLINE,
+    OWNER_ONLINE,
+    SCHEDULED
 }
@@ -0,0 +1,158 @@
+package pl.psalkowski.chunkanchor.model;
+
+import java.time.DayOfWeek;
+import java.time.ZonedDateTime;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Weekly time windows during which a SCHEDULED anchor is loaded, e.g.
+ * {@code "mon-fri 01:00-07:00; sat,sun 00:00-10:00"}. Windows are separated by {@code ;}; days are
+ * {@code *}, full or three-letter names, lists and ranges ({@code fri-mon} wraps), and may be omitted for
+ * every day. A window ending before it starts runs past midnight into the next day. Parsed schedules
+ * are cached by spec, up to a fixed number of distinct specs.
+ */
+public final class LoadSchedule {
+
+    public static final int MINUTES_PER_WEEK = 7 * 24 * 60;
+
+    private static final String[] DAY_NAMES = {"mon", "tue", "wed", "thu", "fri", "sat", "sun"};
+    private static final int MAX_CACHED = 256;
+    private static final Map<String, LoadSchedule> PARSED = new ConcurrentHashMap<>();
+
+    private final String spec;
+    private final BitSet minutes;
+
+    private LoadSchedule(String spec, BitSet minutes) {
+        this.spec = spec;
+        this.minutes = minutes;
+    }
+
+    public static LoadSchedule parse(String spec) {
+        String normalized = spec.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        LoadSchedule cached = PARSED.get(normalized);
+        if (cached != null) {
+            return cached;
+        }
+        BitSet minutes = new BitSet(MINUTES_PER_WEEK);
+        for (String window : normalized.split(";")) {
+            parseWindow(window.trim(), minutes, spec);
+        }
+        if (minutes.isEmpty()) {
+            throw new IllegalArgumentException("Schedule has no windows: " + spec);
+        }
+        LoadSchedule schedule = new LoadSchedule(normalized, minutes);
+        if (PARSED.size() < MAX_CACHED) {
+            PARSED.putIfAbsent(normalized, schedule);
+        }
+        return schedule;
+    }
+
+    public static int minuteOfWeek(ZonedDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * 24 * 60 + time.getHour() * 60 + time.getMinute();
+    }
+
+    public boolean isActive(int minuteOfWeek) {
+        return minutes.get(minuteOfWeek);
+    }
+
+    /**
+     * Minutes from {@code minuteOfWeek} until the schedule next opens or closes, or -1 if it never does.
+     */
+    public int minutesUntilChange(int minuteOfWeek) {
+        if (minutes.cardinality() == MINUTES_PER_WEEK) {
+            return -1;
+        }
+        boolean active = minutes.get(minuteOfWeek);
+        int next = active ? minutes.nextClearBit(minuteOfWeek) : minutes.nextSetBit(minuteOfWeek);
+        if (next < 0 || next >= MINUTES_PER_WEEK) {
+            next = (active ? minutes.nextClearBit(0) : minutes.nextSetBit(0)) + MINUTES_PER_WEEK;
+        }
+        return next - minuteOfWeek;
+    }
+
+    public String getSpec() {
+        return spec;
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    private static void parseWindow(String window, BitSet minutes, String spec) {
+        if (window.isEmpty()) {
+            return;
+        }
+        int space = window.lastIndexOf(' ');
+        String days = space < 0 ? "*" : window.substring(0, space).replace(" ", "");
+        String times = space < 0 ? window : window.substring(space + 1);
+
+        int dash = times.indexOf('-');
+        if (dash < 0) {
+            throw new IllegalArgumentException("Expected HH:MM-HH:MM in schedule: " + spec);
+        }
+        int start = parseTime(times.substring(0, dash), spec);
+        int end = parseTime(times.substring(dash + 1), spec);
+        int length = end > start ? end - start : end - start + 24 * 60;
+
+        for (int day : parseDays(days, spec)) {
+            int from = day * 24 * 60 + start;
+            for (int minute = from; minute < from + length; minute++) {
+                minutes.set(minute % MINUTES_PER_WEEK);
+            }
+        }
+    }
+
+    private static int[] parseDays(String days, String spec) {
+        if (days.equals("*")) {
+            return new int[]{0, 1, 2, 3, 4, 5, 6};
+        }
+        BitSet selected = new BitSet(7);
+        for (String item : days.split(",")) {
+            int dash = item.indexOf('-');
+            if (dash < 0) {
+                selected.set(parseDay(item, spec));
+                continue;
+            }
+            int from = parseDay(item.substring(0, dash), spec);
+            int to = parseDay(item.substring(dash + 1), spec);
+            for (int day = from; ; day = (day + 1) % 7) {
+                selected.set(day);
+                if (day == to) {
+                    break;
+                }
+            }
+        }
+        return selected.stream().toArray();
+    }
+
+    private static int parseDay(String day, String spec) {
+        for (int i = 0; i < DAY_NAMES.length; i++) {
+            if (day.equals(DAY_NAMES[i])) {
+                return i;
+            }
+        }
+        try {
+            return DayOfWeek.valueOf(day.toUpperCase(Locale.ROOT)).getValue() - 1;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown day '" + day + "' in schedule: " + spec);
+        }
+    }
+
+    private static int parseTime(String time, String spec) {
+        int colon = time.indexOf(':');
+        try {
+            int hour = Integer.parseInt(colon < 0 ? time : time.substring(0, colon));
+            int minute = colon < 0 ? 0 : Integer.parseInt(time.substring(colon + 1));
+            if (hour < 0 || hour > 24 || minute < 0 || minute > 59 || (hour == 24 && minute != 0)) {
+                throw new IllegalArgumentException("Invalid time '" + time + "' in schedule: " + spec);
+            }
+            return hour * 60 + minute;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid time '" + time + "' in schedule: " + spec);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package pl.psalkowski.chunkanchor.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Folia: server-wide work runs on the global region thread, chunk work on the region that owns the
+ * chunk and player work on the player's region, so anchors in different regions are processed in
+ * parallel.
+ */
+class FoliaTaskScheduler implements TaskScheduler {
+
+    private final Plugin plugin;
+    private volatile boolean tickTimeUnavailable;
+
+    FoliaTaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean isGlobalThread() {
+        return Bukkit.isGlobalTickThread();
+    }
+
+    @Override
+    public void executeGlobal(Runnable task) {
+        if (Bukkit.isGlobalTickThread()) {
+            task.run();
+        } else {
+            Bukkit.getGlobalRegionScheduler().execute(plugin, task);
+        }
+    }
+
+    @Override
+    public TaskHandle runGlobalLater(Runnable task, long delayTicks) {
+        return Bukkit.getGlobalRegionScheduler().runDelayed(plugin, scheduled -> task.run(), Math.max(1L, delayTicks))::cancel;
+    }
+
+    @Override
+    public TaskHandle runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+        return Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, scheduled -> task.run(), Math.max(1L, delayTicks), periodTicks)::cancel;
+    }
+
+    @Override
+    public void runAtChunk(World world, int chunkX, int chunkZ, Runnable task) {
+        if (Bukkit.isOwnedByCurrentRegion(world, chunkX, chunkZ)) {
+            task.run();
+        } else {
+            Bukkit.getRegionScheduler().execute(plugin, world, chunkX, chunkZ, task);
+        }
+    }
+
+    @Override
+    public void runForPlayer(Player player, Runnable task) {
+        if (Bukkit.isOwnedByCurrentRegion(player)) {
+            task.run();
+        } else {
+            player.getScheduler().execute(plugin, task, null, 1L);
+        }
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(Player player) {
+        return Bukkit.isOwnedByCurrentRegion(player);
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(World world, int chunkX, int chunkZ) {
+        return Bukkit.isOwnedByCurrentRegion(world, chunkX, chunkZ);
+    }
+
+    @Override
+    public double getAverageTickTime() {
+        if (tickTimeUnavailable) {
+            return 0;
+        }
+        try {
+            return Bukkit.getAverageTickTime();
+        } catch (UnsupportedOperationException e) {
+            tickTimeUnavailable = true;
+            plugin.getLogger().warning("The server does not report an average tick time; restore back-off and lag shedding are inactive");
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package pl.psalkowski.chunkanchor.scheduler;
+
+@FunctionalInterface
+public interface TaskHandle {
+
+    void cancel();
+}
@@ -0,0 +1,58 @@
+package pl.psalkowski.chunkanchor.scheduler;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Runs plugin work on the right thread for the server. Paper has a single main thread; Folia ticks
+ * regions of chunks in parallel, with a separate global thread for server-wide work. Anchor
+ * bookkeeping lives on the global thread, while chunk and player work runs on the thread that owns
+ * the chunk or player.
+ */
+public interface TaskScheduler {
+
+    static TaskScheduler create(Plugin plugin) {
+        return isFolia() ? new FoliaTaskScheduler(plugin) : new BukkitTaskScheduler(plugin);
+    }
+
+    static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    boolean isGlobalThread();
+
+    /**
+     * Runs the task now if called on the global thread, otherwise on the global thread's next tick.
+     */
+    void executeGlobal(Runnable task);
+
+    TaskHandle runGlobalLater(Runnable task, long delayTicks);
+
+    TaskHandle runGlobalTimer(Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Runs the task on the thread that owns the chunk, immediately if that is the calling thread.
+     */
+    void runAtChunk(World world, int chunkX, int chunkZ, Runnable task);
+
+    /**
+     * Runs the task on the thread that owns the player, immediately if that is the calling thread.
+     * The task is dropped if the player leaves first.
+     */
+    void runForPlayer(Player player, Runnable task);
+
+    boolean isOwnedByCurrentThread(Player player);
+
+    boolean isOwnedByCurrentThread(World world, int chunkX, int chunkZ);
+
+    /**
+     * Average tick time in milliseconds, or 0 if the server does not report one.
+     */
+    double getAverageTickTime();
+}
@@ -0,0 +1,529 @@
+package pl.psalkowski.chunkanchor.storage;
+
+import pl.psalkowski.chunkanchor.manager.AnchorManager.Anchor;
+import pl.psalkowski.chunkanchor.model.AnchorShape;
+import pl.psalkowski.chunkanchor.model.LoadMode;
+import pl.psalkowski.chunkanchor.model.LoadSchedule;
+import pl.psalkowski.chunkanchor.util.ChunkCoords;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+public class AnchorJournal {
+
+    private static final int SNAPSHOT_MAGIC = 0x43414E53;
+    private static final int JOURNAL_MAGIC = 0x43414E4A;
+    private static final int FORMAT_VERSION = 4;
+    private static final int HEADER_SIZE = 16;
+    // Largest legal entry: a PUT with a chunk list of AnchorShape.MAX_CHUNKS (8 bytes each) plus up to
+    // four modified-UTF-8 strings of at most 65535 bytes (name, world, load mode, schedule)
+    static final int MAX_ENTRY_SIZE = 64 + 4 * (2 + 65535) + 8 * AnchorShape.MAX_CHUNKS;
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte LOAD_MODE = 3;
+    private static final byte ENABLED = 4;
+    private static final byte PRIORITY = 5;
+    private static final byte SHAPE = 6;
+    private static final byte SCHEDULE = 7;
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final Logger logger;
+    private FileChannel channel;
+    private long generation;
+    private int entryCount;
+    private int readVersion;
+    private boolean upgradeNeeded;
+    private long bytesWritten;
+
+    public AnchorJournal(Path snapshotFile, Path journalFile, Logger logger) {
+        this.snapshotFile = snapshotFile;
+        this.journalFile = journalFile;
+        this.logger = logger;
+    }
+
+    public boolean exists() {
+        return Files.exists(snapshotFile) || Files.exists(journalFile);
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public void load(Map<UUID, Map<String, Anchor>> target) throws IOException {
+        generation = readSnapshot(target);
+        long validLength = replayJournal(target);
+        if (validLength >= 0) {
+            preserveDamagedTail(validLength);
+        }
+        openJournal(validLength);
+        if (upgradeNeeded) {
+            upgradeNeeded = false;
+            compact(target);
+        }
+    }
+
+    public void append(List<byte[]> entries) throws IOException {
+        int total = 0;
+        for (byte[] entry : entries) {
+            total += entry.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        for (byte[] entry : entries) {
+            buffer.put(entry);
+        }
+        buffer.flip();
+        if (channel == null) {
+            // A compaction failed between closing the old journal and opening the new one
+            openJournal(-1);
+        }
+        long start = channel.position();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // Drop the partial batch so a retry does not leave a torn entry in the middle of the journal
+            try {
+                channel.truncate(start);
+                channel.position(start);
+            } catch (IOException rollback) {
+                e.addSuppressed(rollback);
+            }
+            throw e;
+        }
+        entryCount += entries.size();
+        bytesWritten += total;
+    }
+
+    public void compact(Map<UUID, Map<String, Anchor>> snapshot) throws IOException {
+        long nextGeneration = generation + 1;
+        writeSnapshot(snapshot, nextGeneration);
+        generation = nextGeneration;
+        closeChannel();
+        AtomicFileWriter.write(journalFile, header(JOURNAL_MAGIC, generation));
+        openJournal(HEADER_SIZE);
+        entryCount = 0;
+    }
+
+    public void close() throws IOException {
+        closeChannel();
+    }
+
+    public static byte[] encodePut(UUID owner, String name, Anchor anchor) {
+        return frame(PUT, out -> {
+            writeKey(out, owner, name);
+            writeAnchor(out, anchor);
+        });
+    }
+
+    public static byte[] encodeRemove(UUID owner, String name) {
+        return frame(REMOVE, out -> writeKey(out, owner, name));
+    }
+
+    public static byte[] encodeLoadMode(UUID owner, String name, LoadMode loadMode) {
+        return frame(LOAD_MODE, out -> {
+            writeKey(out, owner, name);
+            out.writeUTF(loadMode.name());
+        });
+    }
+
+    public static byte[] encodePriority(UUID owner, String name, int priority) {
+        return frame(PRIORITY, out -> {
+            writeKey(out, owner, name);
+            out.writeInt(priority);
+        });
+    }
+
+    public static byte[] encodeShape(UUID owner, String name, AnchorShape shape) {
+        return frame(SHAPE, out -> {
+            writeKey(out, owner, name);
+            writeShape(out, shape);
+        });
+    }
+
+    public static byte[] encodeSchedule(UUID owner, String name, LoadSchedule schedule) {
+        return frame(SCHEDULE, out -> {
+            writeKey(out, owner, name);
+            writeSchedule(out, schedule);
+        });
+    }
+
+    public static byte[] encodeEnabled(UUID owner, String name, boolean enabled) {
+        return frame(ENABLED, out -> {
+            writeKey(out, owner, name);
+            out.writeBoolean(enabled);
+        });
+    }
+
+    private long readSnapshot(Map<UUID, Map<String, Anchor>> target) throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return 0;
+        }
+
+        byte[] content = Files.readAllBytes(snapshotFile);
+        if (content.length < HEADER_SIZE + 4) {
+            throw new IOException("Snapshot " + snapshotFile.getFileName() + " is truncated");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, content.length - 4);
+        int storedCrc = ByteBuffer.wrap(content, content.length - 4, 4).getInt();
+        if ((int) crc.getValue() != storedCrc) {
+            throw new IOException("Snapshot " + snapshotFile.getFileName() + " failed its checksum");
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(content, 0, content.length - 4));
+        long snapshotGeneration = readHeader(in, SNAPSHOT_MAGIC, snapshotFile);
+        int players = in.readInt();
+        for (int p = 0; p < players; p++) {
+            UUID owner = new UUID(in.readLong(), in.readLong());
+            int count = in.readInt();
+            Map<String, Anchor> anchors = new ConcurrentHashMap<>();
+            for (int a = 0; a < count; a++) {
+                String name = in.readUTF();
+                anchors.put(name, readAnchor(in));
+            }
+            if (!anchors.isEmpty()) {
+                target.put(owner, anchors);
+            }
+        }
+        return snapshotGeneration;
+    }
+
+    private long replayJournal(Map<UUID, Map<String, Anchor>> target) throws IOException {
+        if (!Files.exists(journalFile)) {
+            return -1;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+            long journalGeneration;
+            try {
+                journalGeneration = readHeader(in, JOURNAL_MAGIC, journalFile);
+            } catch (EOFException e) {
+                return -1;
+            }
+            if (journalGeneration != generation) {
+                return -1;
+            }
+
+            long position = HEADER_SIZE;
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] body;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_ENTRY_SIZE) {
+                        break;
+                    }
+                    body = in.readNBytes(length);
+                    if (body.length < length) {
+                        break;
+                    }
+                    crc.reset();
+                    crc.update(body);
+                    if ((int) crc.getValue() != in.readInt()) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                apply(body, target);
+                position += 8 + body.length;
+                entryCount++;
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Replay stops at the first entry with a bad length or checksum, and opening the journal truncates
+     * everything after it. The dropped bytes are copied to a side file first so they can be inspected
+     * or recovered by hand.
+     */
+    private void preserveDamagedTail(long validLength) throws IOException {
+        long size = Files.size(journalFile);
+        if (size <= validLength) {
+            return;
+        }
+        Path backup = journalFile.resolveSibling(journalFile.getFileName() + ".corrupt-" + System.currentTimeMillis());
+        try (FileChannel in = FileChannel.open(journalFile, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(backup, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long position = validLength;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+            out.force(true);
+        }
+        logger.warning("Anchor journal " + journalFile.getFileName() + " is damaged at offset " + validLength
+                + ": dropping the last " + (size - validLength) + " bytes (copied to " + backup.getFileName() + ")");
+    }
+
+    private void apply(byte[] body, Map<UUID, Map<String, Anchor>> target) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte type = in.readByte();
+        UUID owner = new UUID(in.readLong(), in.readLong());
+        String name = in.readUTF();
+
+        switch (type) {
+            case PUT -> target.computeIfAbsent(owner, k -> new ConcurrentHashMap<>()).put(name, readAnchor(in));
+            case REMOVE -> {
+                Map<String, Anchor> anchors = target.get(owner);
+                if (anchors != null) {
+                    anchors.remove(name);
+                    if (anchors.isEmpty()) {
+                        target.remove(owner);
+                    }
+                }
+            }
+            case LOAD_MODE -> {
+                LoadMode loadMode = parseLoadMode(in.readUTF());
+                Map<String, Anchor> anchors = target.get(owner);
+                if (anchors != null) {
+                    anchors.computeIfPresent(name, (k, anchor) -> anchor.withLoadMode(loadMode));
+                }
+            }
+            case ENABLED -> {
+                boolean enabled = in.readBoolean();
+                Map<String, Anchor> anchors = target.get(owner);
+                if (anchors != null) {
+                    anchors.computeIfPresent(name, (k, anchor) -> anchor.withEnabled(enabled));
+                }
+            }
+            case PRIORITY -> {
+                int priority = in.readInt();
+                Map<String, Anchor> anchors = target.get(owner);
+                if (anchors != null) {
+                    anchors.computeIfPresent(name, (k, anchor) -> anchor.withPriority(priority));
+                }
+            }
+            case SHAPE -> {
+                AnchorShape shape = readShape(in);
+                Map<String, Anchor> anchors = target.get(owner);
+                if (anchors != null) {
+                    anchors.computeIfPresent(name, (k, anchor) -> anchor.withShape(shape));
+                }
+            }
+            case SCHEDULE -> {
+                LoadSchedule schedule = readSchedule(in);
+                Map<String, Anchor> anchors = target.get(owner);
+                if (anchors != null) {
+                    anchors.computeIfPresent(name, (k, anchor) -> anchor.withSchedule(schedule));
+                }
+            }
+            default -> throw new IOException("Unknown journal entry type " + type);
+        }
+    }
+
+    private void writeSnapshot(Map<UUID, Map<String, Anchor>> snapshot, long snapshotGeneration) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + snapshot.size() * 128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(header(SNAPSHOT_MAGIC, snapshotGeneration));
+        out.writeInt(snapshot.size());
+        for (Map.Entry<UUID, Map<String, Anchor>> playerEntry : snapshot.entrySet()) {
+            out.writeLong(playerEntry.getKey().getMostSignificantBits());
+            out.writeLong(playerEntry.getKey().getLeastSignificantBits());
+            out.writeInt(playerEntry.getValue().size());
+            for (Map.Entry<String, Anchor> anchorEntry : playerEntry.getValue().entrySet()) {
+                out.writeUTF(anchorEntry.getKey());
+                writeAnchor(out, anchorEntry.getValue());
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        AtomicFileWriter.write(snapshotFile, bytes.toByteArray());
+        bytesWritten += bytes.size();
+    }
+
+    private void openJournal(long validLength) throws IOException {
+        if (validLength < 0) {
+            AtomicFileWriter.write(journalFile, header(JOURNAL_MAGIC, generation));
+            validLength = HEADER_SIZE;
+        }
+        channel = FileChannel.open(journalFile, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private static byte[] header(int magic, long headerGeneration) {
+        return ByteBuffer.allocate(HEADER_SIZE).putInt(magic).putInt(FORMAT_VERSION).putLong(headerGeneration).array();
+    }
+
+    private long readHeader(DataInputStream in, int magic, Path file) throws IOException {
+        if (in.readInt() != magic) {
+            throw new IOException(file.getFileName() + " is not a ChunkAnchor data file");
+        }
+        int version = in.readInt();
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new IOException(file.getFileName() + " has unsupported format version " + version);
+        }
+        readVersion = version;
+        if (version < FORMAT_VERSION) {
+            upgradeNeeded = true;
+        }
+        return in.readLong();
+    }
+
+    private interface EntryWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] frame(byte type, EntryWriter writer) {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+            DataOutputStream bodyOut = new DataOutputStream(body);
+            bodyOut.writeByte(type);
+            writer.write(bodyOut);
+            byte[] payload = body.toByteArray();
+            if (payload.length > MAX_ENTRY_SIZE) {
+                // Replay would treat a longer entry as a damaged tail and drop it along with everything after it
+                throw new IllegalArgumentException("Journal entry of " + payload.length + " bytes exceeds the limit of " + MAX_ENTRY_SIZE);
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            return ByteBuffer.allocate(payload.length + 8)
+                    .putInt(payload.length)
+                    .put(payload)
+                    .putInt((int) crc.getValue())
+                    .array();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeKey(DataOutputStream out, UUID owner, String name) throws IOException {
+        out.writeLong(owner.getMostSignificantBits());
+        out.writeLong(owner.getLeastSignificantBits());
+        out.writeUTF(name);
+    }
+
+    private static void writeAnchor(DataOutputStream out, Anchor anchor) throws IOException {
+        out.writeUTF(anchor.world());
+        out.writeInt(anchor.x());
+        out.writeInt(anchor.z());
+        out.writeUTF(anchor.loadMode().name());
+        out.writeBoolean(anchor.enabled());
+        out.writeInt(anchor.priority());
+        writeShape(out, anchor.shape());
+        writeSchedule(out, anchor.schedule());
+    }
+
+    private static void writeSchedule(DataOutputStream out, LoadSchedule schedule) throws IOException {
+        out.writeUTF(schedule == null ? "" : schedule.getSpec());
+    }
+
+    private static LoadSchedule readSchedule(DataInputStream in) throws IOException {
+        String spec = in.readUTF();
+        if (spec.isEmpty()) {
+            return null;
+        }
+        try {
+            return LoadSchedule.parse(spec);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static void writeShape(DataOutputStream out, AnchorShape shape) throws IOException {
+        if (shape == null) {
+            out.writeByte(0);
+            return;
+        }
+        out.writeByte(shape.getType().ordinal() + 1);
+        switch (shape.getType()) {
+            case SQUARE, CIRCLE -> out.writeInt(shape.getSizeX());
+            case RECTANGLE -> {
+                out.writeInt(shape.getSizeX());
+                out.writeInt(shape.getSizeZ());
+            }
+            case LIST -> {
+                out.writeInt(shape.getChunkCount());
+                for (int i = 0; i < shape.getChunkCount(); i++) {
+                    out.writeInt(shape.dx(i));
+                    out.writeInt(shape.dz(i));
+                }
+            }
+        }
+    }
+
+    private static AnchorShape readShape(DataInputStream in) throws IOException {
+        int kind = in.readUnsignedByte();
+        if (kind == 0) {
+            return null;
+        }
+        AnchorShape.Type[] types = AnchorShape.Type.values();
+        if (kind > types.length) {
+            throw new IOException("Unknown anchor shape type " + kind);
+        }
+        try {
+            return switch (types[kind - 1]) {
+                case SQUARE -> AnchorShape.square(in.readInt());
+                case CIRCLE -> AnchorShape.circle(in.readInt());
+                case RECTANGLE -> AnchorShape.rectangle(in.readInt(), in.readInt());
+                case LIST -> {
+                    int count = in.readInt();
+                    if (count < 0 || count > AnchorShape.MAX_CHUNKS) {
+                        throw new IOException("Invalid chunk count " + count + " in anchor shape");
+                    }
+                    long[] offsets = new long[count];
+                    for (int i = 0; i < offsets.length; i++) {
+                        offsets[i] = ChunkCoords.key(in.readInt(), in.readInt());
+                    }
+                    yield AnchorShape.list(offsets);
+                }
+            };
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private Anchor readAnchor(DataInputStream in) throws IOException {
+        String world = in.readUTF();
+        int x = in.readInt();
+        int z = in.readInt();
+        LoadMode loadMode = parseLoadMode(in.readUTF());
+        boolean enabled = in.readBoolean();
+        int priority = readVersion >= 2 ? in.readInt() : 0;
+        AnchorShape shape = readVersion >= 3 ? readShape(in) : null;
+        LoadSchedule schedule = readVersion >= 4 ? readSchedule(in) : null;
+        return new Anchor(world, x, z, loadMode, enabled, priority, shape, schedule);
+    }
+
+    private static LoadMode parseLoadMode(String value) {
+        try {
+            return LoadMode.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return LoadMode.DEFAULT;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package pl.psalkowski.chunkanchor.storage;
+
+import pl.psalkowski.chunkanchor.manager.AnchorManager.Anchor;
+import pl.psalkowski.chunkanchor.model.AnchorShape;
+import pl.psalkowski.chunkanchor.model.LoadMode;
+import pl.psalkowski.chunkanchor.model.LoadSchedule;
+
+import java.util.Map;
+import java.util.UUID;
+
+public interface AnchorStore {
+
+    Map<UUID, Map<String, Anchor>> load();
+
+    void anchorPut(UUID playerId, String name, Anchor anchor);
+
+    void anchorRemoved(UUID playerId, String name);
+
+    void loadModeChanged(UUID playerId, String name, LoadMode loadMode);
+
+    void enabledChanged(UUID playerId, String name, boolean enabled);
+
+    void priorityChanged(UUID playerId, String name, int priority);
+
+    void shapeChanged(UUID playerId, String name, AnchorShape shape);
+
+    void scheduleChanged(UUID playerId, String name, LoadSchedule schedule);
+
+    void close();
+}
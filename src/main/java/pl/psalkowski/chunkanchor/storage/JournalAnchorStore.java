@@ -0,0 +1,120 @@
+package pl.psalkowski.chunkanchor.storage;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+import pl.psalkowski.chunkanchor.manager.AnchorManager.Anchor;
+import pl.psalkowski.chunkanchor.metrics.AnchorMetrics;
+import pl.psalkowski.chunkanchor.model.AnchorShape;
+import pl.psalkowski.chunkanchor.model.LoadMode;
+import pl.psalkowski.chunkanchor.model.LoadSchedule;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+public class JournalAnchorStore extends WriteBehindStore<byte[]> {
+
+    private final File legacyFile;
+    private final AnchorJournal journal;
+    private final Supplier<Map<UUID, Map<String, Anchor>>> snapshotSupplier;
+    private final int compactAfter;
+
+    public JournalAnchorStore(Plugin plugin, FileConfiguration config, AnchorMetrics metrics, Supplier<Map<UUID, Map<String, Anchor>>> snapshotSupplier) {
+        super(plugin, config, metrics);
+        this.legacyFile = new File(plugin.getDataFolder(), "anchors.yml");
+        this.journal = new AnchorJournal(
+                new File(plugin.getDataFolder(), "anchors.dat").toPath(),
+                new File(plugin.getDataFolder(), "anchors.journal").toPath(),
+                plugin.getLogger());
+        this.compactAfter = Math.max(1, config.getInt("storage.compact-after", 1000));
+        this.snapshotSupplier = snapshotSupplier;
+    }
+
+    @Override
+    public Map<UUID, Map<String, Anchor>> load() {
+        Map<UUID, Map<String, Anchor>> anchors = new ConcurrentHashMap<>();
+        try {
+            if (!journal.exists() && legacyFile.exists()) {
+                migrateLegacy(anchors);
+            } else {
+                journal.load(anchors);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load anchors: " + e.getMessage(), e);
+        }
+        return anchors;
+    }
+
+    @Override
+    public void anchorPut(UUID playerId, String name, Anchor anchor) {
+        enqueue(AnchorJournal.encodePut(playerId, name, anchor));
+    }
+
+    @Override
+    public void anchorRemoved(UUID playerId, String name) {
+        enqueue(AnchorJournal.encodeRemove(playerId, name));
+    }
+
+    @Override
+    public void loadModeChanged(UUID playerId, String name, LoadMode loadMode) {
+        enqueue(AnchorJournal.encodeLoadMode(playerId, name, loadMode));
+    }
+
+    @Override
+    public void enabledChanged(UUID playerId, String name, boolean enabled) {
+        enqueue(AnchorJournal.encodeEnabled(playerId, name, enabled));
+    }
+
+    @Override
+    public void priorityChanged(UUID playerId, String name, int priority) {
+        enqueue(AnchorJournal.encodePriority(playerId, name, priority));
+    }
+
+    @Override
+    public void shapeChanged(UUID playerId, String name, AnchorShape shape) {
+        enqueue(AnchorJournal.encodeShape(playerId, name, shape));
+    }
+
+    @Override
+    public void scheduleChanged(UUID playerId, String name, LoadSchedule schedule) {
+        enqueue(AnchorJournal.encodeSchedule(playerId, name, schedule));
+    }
+
+    @Override
+    protected long write(List<byte[]> entries) throws IOException {
+        long bytesBefore = journal.getBytesWritten();
+        journal.append(entries);
+        if (journal.getEntryCount() >= compactAfter) {
+            try {
+                journal.compact(snapshotSupplier.get());
+            } catch (IOException e) {
+                // The batch is already in the journal, so it must not be retried; compaction runs again after the next batch
+                plugin.getLogger().warning("Failed to compact the anchor journal: " + e.getMessage());
+            }
+        }
+        return journal.getBytesWritten() - bytesBefore;
+    }
+
+    @Override
+    protected void closeStore() throws IOException {
+        journal.close();
+    }
+
+    private void migrateLegacy(Map<UUID, Map<String, Anchor>> target) throws IOException {
+        YamlAnchorStore.read(legacyFile, target, plugin.getLogger());
+        journal.load(new ConcurrentHashMap<>());
+        journal.compact(target);
+
+        Path migrated = legacyFile.toPath().resolveSibling(legacyFile.getName() + ".migrated");
+        Files.move(legacyFile.toPath(), migrated, StandardCopyOption.REPLACE_EXISTING);
+        int totalAnchors = target.values().stream().mapToInt(Map::size).sum();
+        plugin.getLogger().info("Migrated " + totalAnchors + " anchors from anchors.yml to the binary journal (original kept as " + migrated.getFileName() + ")");
+    }
+}
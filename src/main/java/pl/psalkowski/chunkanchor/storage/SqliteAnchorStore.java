@@ -0,0 +1,268 @@
+package pl.psalkowski.chunkanchor.storage;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+import pl.psalkowski.chunkanchor.manager.AnchorManager.Anchor;
+import pl.psalkowski.chunkanchor.metrics.AnchorMetrics;
+import pl.psalkowski.chunkanchor.model.AnchorShape;
+import pl.psalkowski.chunkanchor.model.LoadMode;
+import pl.psalkowski.chunkanchor.model.LoadSchedule;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SqliteAnchorStore extends WriteBehindStore<SqliteAnchorStore.Operation> {
+
+    interface Operation {
+        void execute(Connection connection) throws SQLException;
+    }
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS anchors ("
+                    + "owner CHAR(36) NOT NULL, "
+                    + "name VARCHAR(64) NOT NULL, "
+                    + "world VARCHAR(128) NOT NULL, "
+                    + "x INTEGER NOT NULL, "
+                    + "z INTEGER NOT NULL, "
+                    + "chunk_x INTEGER NOT NULL, "
+                    + "chunk_z INTEGER NOT NULL, "
+                    + "load_mode VARCHAR(16) NOT NULL, "
+                    + "enabled BOOLEAN NOT NULL, "
+                    + "priority INTEGER NOT NULL DEFAULT 0, "
+                    + "shape TEXT, "
+                    + "schedule TEXT, "
+                    + "PRIMARY KEY (owner, name))",
+            "CREATE INDEX IF NOT EXISTS anchors_chunk ON anchors (world, chunk_x, chunk_z)",
+            "CREATE INDEX IF NOT EXISTS anchors_owner ON anchors (owner)"
+    };
+
+    private static final Map<String, String> ADDED_COLUMNS = Map.of(
+            "priority", "INTEGER NOT NULL DEFAULT 0",
+            "shape", "TEXT",
+            "schedule", "TEXT");
+
+    private final File databaseFile;
+    private Connection connection;
+
+    public SqliteAnchorStore(Plugin plugin, FileConfiguration config, AnchorMetrics metrics) {
+        super(plugin, config, metrics);
+        this.databaseFile = new File(plugin.getDataFolder(), config.getString("storage.sqlite-file", "anchors.db"));
+    }
+
+    @Override
+    public Map<UUID, Map<String, Anchor>> load() {
+        Map<UUID, Map<String, Anchor>> anchors = new ConcurrentHashMap<>();
+        try {
+            Class.forName("org.sqlite.JDBC");
+            plugin.getDataFolder().mkdirs();
+            connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                for (String sql : SCHEMA) {
+                    statement.execute(sql);
+                }
+                migrateSchema(statement);
+            }
+
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT owner, name, world, x, z, load_mode, enabled, priority, shape, schedule FROM anchors")) {
+                while (rows.next()) {
+                    UUID owner;
+                    try {
+                        owner = UUID.fromString(rows.getString(1));
+                    } catch (IllegalArgumentException e) {
+                        plugin.getLogger().warning("Invalid player UUID in " + databaseFile.getName() + ": " + rows.getString(1));
+                        continue;
+                    }
+                    Anchor anchor = new Anchor(rows.getString(3), rows.getInt(4), rows.getInt(5), parseLoadMode(rows.getString(6)), rows.getBoolean(7), rows.getInt(8), parseShape(rows.getString(9)), parseSchedule(rows.getString(10)));
+                    anchors.computeIfAbsent(owner, k -> new ConcurrentHashMap<>()).put(rows.getString(2), anchor);
+                }
+            }
+            connection.setAutoCommit(false);
+        } catch (ClassNotFoundException | SQLException e) {
+            throw new IllegalStateException("Failed to open " + databaseFile.getName() + ": " + e.getMessage(), e);
+        }
+        return anchors;
+    }
+
+    @Override
+    public void anchorPut(UUID playerId, String name, Anchor anchor) {
+        enqueue(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT OR REPLACE INTO anchors (owner, name, world, x, z, chunk_x, chunk_z, load_mode, enabled, priority, shape, schedule) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                statement.setString(1, playerId.toString());
+                statement.setString(2, name);
+                statement.setString(3, anchor.world());
+                statement.setInt(4, anchor.x());
+                statement.setInt(5, anchor.z());
+                statement.setInt(6, anchor.chunkX());
+                statement.setInt(7, anchor.chunkZ());
+                statement.setString(8, anchor.loadMode().name());
+                statement.setBoolean(9, anchor.enabled());
+                statement.setInt(10, anchor.priority());
+                statement.setString(11, anchor.shape() == null ? null : anchor.shape().encode());
+                statement.setString(12, anchor.schedule() == null ? null : anchor.schedule().getSpec());
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public void anchorRemoved(UUID playerId, String name) {
+        enqueue(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM anchors WHERE owner = ? AND name = ?")) {
+                statement.setString(1, playerId.toString());
+                statement.setString(2, name);
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public void loadModeChanged(UUID playerId, String name, LoadMode loadMode) {
+        enqueue(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("UPDATE anchors SET load_mode = ? WHERE owner = ? AND name = ?")) {
+                statement.setString(1, loadMode.name());
+                statement.setString(2, playerId.toString());
+                statement.setString(3, name);
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public void enabledChanged(UUID playerId, String name, boolean enabled) {
+        enqueue(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("UPDATE anchors SET enabled = ? WHERE owner = ? AND name = ?")) {
+                statement.setBoolean(1, enabled);
+                statement.setString(2, playerId.toString());
+                statement.setString(3, name);
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public void priorityChanged(UUID playerId, String name, int priority) {
+        enqueue(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("UPDATE anchors SET priority = ? WHERE owner = ? AND name = ?")) {
+                statement.setInt(1, priority);
+                statement.setString(2, playerId.toString());
+                statement.setString(3, name);
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public void shapeChanged(UUID playerId, String name, AnchorShape shape) {
+        enqueue(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("UPDATE anchors SET shape = ? WHERE owner = ? AND name = ?")) {
+                statement.setString(1, shape == null ? null : shape.encode());
+                statement.setString(2, playerId.toString());
+                statement.setString(3, name);
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public void scheduleChanged(UUID playerId, String name, LoadSchedule schedule) {
+        enqueue(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("UPDATE anchors SET schedule = ? WHERE owner = ? AND name = ?")) {
+                statement.setString(1, schedule == null ? null : schedule.getSpec());
+                statement.setString(2, playerId.toString());
+                statement.setString(3, name);
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    protected long write(List<Operation> batch) throws IOException {
+        try {
+            for (Operation operation : batch) {
+                operation.execute(connection);
+            }
+            connection.commit();
+            return 0;
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void closeStore() throws IOException {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static void migrateSchema(Statement statement) throws SQLException {
+        Set<String> columns = new HashSet<>();
+        try (ResultSet rows = statement.executeQuery("PRAGMA table_info(anchors)")) {
+            while (rows.next()) {
+                columns.add(rows.getString("name"));
+            }
+        }
+        for (Map.Entry<String, String> column : ADDED_COLUMNS.entrySet()) {
+            if (!columns.contains(column.getKey())) {
+                statement.execute("ALTER TABLE anchors ADD COLUMN " + column.getKey() + " " + column.getValue());
+            }
+        }
+    }
+
+    private AnchorShape parseShape(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return AnchorShape.parse(value);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid anchor shape in " + databaseFile.getName() + ": " + value);
+            return null;
+        }
+    }
+
+    private LoadSchedule parseSchedule(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LoadSchedule.parse(value);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid anchor schedule in " + databaseFile.getName() + ": " + value);
+            return null;
+        }
+    }
+
+    private static LoadMode parseLoadMode(String value) {
+        try {
+            return LoadMode.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return LoadMode.DEFAULT;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package pl.psalkowski.chunkanchor.storage;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+import pl.psalkowski.chunkanchor.metrics.AnchorMetrics;
+import pl.psalkowski.chunkanchor.metrics.AnchorStoreSaveEvent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Batches changes and writes them on a background thread. A batch that fails to save is kept in
+ * front of newer changes and retried with a growing delay; it is only dropped, with an error in the
+ * log, after {@code storage.max-save-attempts} failures in a row.
+ */
+abstract class WriteBehindStore<T> implements AnchorStore {
+
+    private static final long MIN_RETRY_DELAY_MILLIS = 1000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 60_000;
+    private static final long CLOSE_RETRY_DELAY_MILLIS = 500;
+
+    protected final Plugin plugin;
+    private final AnchorMetrics metrics;
+    private final long saveDelayMillis;
+    private final int maxSaveAttempts;
+    private final Queue<T> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ScheduledThreadPoolExecutor executor;
+    private List<T> failedBatch = new ArrayList<>();
+    private int failedAttempts;
+
+    protected WriteBehindStore(Plugin plugin, FileConfiguration config, AnchorMetrics metrics) {
+        this.plugin = plugin;
+        this.metrics = metrics;
+        this.saveDelayMillis = config.getLong("storage.save-delay-ms", 2000);
+        this.maxSaveAttempts = Math.max(1, config.getInt("storage.max-save-attempts", 5));
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ChunkAnchor-Store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // close() writes whatever is still pending, so delayed saves and retries need not run after shutdown
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    protected void enqueue(T operation) {
+        pending.add(operation);
+        if (scheduled.compareAndSet(false, true) && !executor.isShutdown()) {
+            executor.schedule(this::writeScheduled, saveDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    protected abstract long write(List<T> batch) throws IOException;
+
+    protected void closeStore() throws IOException {
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out waiting for pending anchor save");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        while (writePending()) {
+            try {
+                Thread.sleep(CLOSE_RETRY_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                plugin.getLogger().severe("Interrupted while retrying the anchor save; unsaved anchor changes were lost");
+                break;
+            }
+        }
+        try {
+            closeStore();
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to close anchor store: " + e.getMessage());
+        }
+    }
+
+    private void writeScheduled() {
+        if (writePending() && !executor.isShutdown()) {
+            executor.schedule(this::writeScheduled, retryDelayMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized long retryDelayMillis() {
+        long delay = Math.max(MIN_RETRY_DELAY_MILLIS, saveDelayMillis) << Math.min(failedAttempts - 1, 6);
+        return Math.min(delay, MAX_RETRY_DELAY_MILLIS);
+    }
+
+    /**
+     * Returns true if a failed batch is waiting to be retried.
+     */
+    private synchronized boolean writePending() {
+        scheduled.set(false);
+        List<T> batch = failedBatch;
+        failedBatch = new ArrayList<>();
+        T operation;
+        while ((operation = pending.poll()) != null) {
+            batch.add(operation);
+        }
+        if (batch.isEmpty()) {
+            return false;
+        }
+
+        AnchorStoreSaveEvent event = new AnchorStoreSaveEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            long bytes = write(batch);
+            metrics.recordSave(System.nanoTime() - start, bytes);
+            event.bytes = bytes;
+            event.succeeded = true;
+            failedAttempts = 0;
+        } catch (IOException e) {
+            metrics.recordSaveFailure();
+            failedAttempts++;
+            if (failedAttempts < maxSaveAttempts) {
+                failedBatch = batch;
+                plugin.getLogger().warning("Failed to save " + batch.size() + " anchor changes (attempt " + failedAttempts + " of " + maxSaveAttempts + "), retrying: " + e.getMessage());
+            } else {
+                plugin.getLogger().severe("Giving up on " + batch.size() + " anchor changes after " + failedAttempts + " failed saves; they will be lost on restart: " + e.getMessage());
+                failedAttempts = 0;
+            }
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.backend = getClass().getSimpleName();
+            event.changeCount = batch.size();
+            event.commit();
+        }
+        return !failedBatch.isEmpty();
+    }
+}
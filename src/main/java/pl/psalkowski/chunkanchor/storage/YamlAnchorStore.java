@@ -0,0 +1,175 @@
+package pl.psalkowski.chunkanchor.storage;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+import pl.psalkowski.chunkanchor.manager.AnchorManager.Anchor;
+import pl.psalkowski.chunkanchor.metrics.AnchorMetrics;
+import pl.psalkowski.chunkanchor.model.AnchorShape;
+import pl.psalkowski.chunkanchor.model.LoadMode;
+import pl.psalkowski.chunkanchor.model.LoadSchedule;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+public class YamlAnchorStore extends WriteBehindStore<UUID> {
+
+    private final File dataFile;
+    private final Supplier<Map<UUID, Map<String, Anchor>>> snapshotSupplier;
+
+    public YamlAnchorStore(Plugin plugin, FileConfiguration config, AnchorMetrics metrics, Supplier<Map<UUID, Map<String, Anchor>>> snapshotSupplier) {
+        super(plugin, config, metrics);
+        this.dataFile = new File(plugin.getDataFolder(), "anchors.yml");
+        this.snapshotSupplier = snapshotSupplier;
+    }
+
+    @Override
+    public Map<UUID, Map<String, Anchor>> load() {
+        Map<UUID, Map<String, Anchor>> anchors = new ConcurrentHashMap<>();
+        if (dataFile.exists()) {
+            read(dataFile, anchors, plugin.getLogger());
+        } else if (new File(plugin.getDataFolder(), dataFile.getName() + ".migrated").exists()) {
+            // Switched back from the journal backend, which renames anchors.yml when it migrates it
+            plugin.getLogger().warning("No " + dataFile.getName() + " found, but " + dataFile.getName() + ".migrated exists: anchors were moved to the binary journal"
+                    + " (anchors.dat). Set storage.type back to journal to keep them, or rename " + dataFile.getName() + ".migrated to " + dataFile.getName()
+                    + " to restore the anchors as they were before the migration");
+        }
+        return anchors;
+    }
+
+    @Override
+    public void anchorPut(UUID playerId, String name, Anchor anchor) {
+        enqueue(playerId);
+    }
+
+    @Override
+    public void anchorRemoved(UUID playerId, String name) {
+        enqueue(playerId);
+    }
+
+    @Override
+    public void loadModeChanged(UUID playerId, String name, LoadMode loadMode) {
+        enqueue(playerId);
+    }
+
+    @Override
+    public void enabledChanged(UUID playerId, String name, boolean enabled) {
+        enqueue(playerId);
+    }
+
+    @Override
+    public void priorityChanged(UUID playerId, String name, int priority) {
+        enqueue(playerId);
+    }
+
+    @Override
+    public void shapeChanged(UUID playerId, String name, AnchorShape shape) {
+        enqueue(playerId);
+    }
+
+    @Override
+    public void scheduleChanged(UUID playerId, String name, LoadSchedule schedule) {
+        enqueue(playerId);
+    }
+
+    @Override
+    protected long write(List<UUID> changedPlayers) throws IOException {
+        FileConfiguration data = new YamlConfiguration();
+
+        snapshotSupplier.get().forEach((uuid, anchors) -> {
+            String basePath = "players." + uuid.toString();
+            anchors.forEach((name, anchor) -> {
+                String anchorPath = basePath + "." + name;
+                data.set(anchorPath + ".world", anchor.world());
+                data.set(anchorPath + ".x", anchor.x());
+                data.set(anchorPath + ".z", anchor.z());
+                data.set(anchorPath + ".load-mode", anchor.loadMode().name());
+                data.set(anchorPath + ".enabled", anchor.enabled());
+                if (anchor.priority() != 0) {
+                    data.set(anchorPath + ".priority", anchor.priority());
+                }
+                if (anchor.shape() != null) {
+                    data.set(anchorPath + ".shape", anchor.shape().encode());
+                }
+                if (anchor.schedule() != null) {
+                    data.set(anchorPath + ".schedule", anchor.schedule().getSpec());
+                }
+            });
+        });
+
+        byte[] bytes = data.saveToString().getBytes(StandardCharsets.UTF_8);
+        AtomicFileWriter.write(dataFile.toPath(), bytes);
+        return bytes.length;
+    }
+
+    static void read(File file, Map<UUID, Map<String, Anchor>> target, Logger logger) {
+        FileConfiguration data = YamlConfiguration.loadConfiguration(file);
+        ConfigurationSection playersSection = data.getConfigurationSection("players");
+        if (playersSection == null) {
+            return;
+        }
+
+        for (String uuidStr : playersSection.getKeys(false)) {
+            try {
+                UUID uuid = UUID.fromString(uuidStr);
+                ConfigurationSection playerSection = playersSection.getConfigurationSection(uuidStr);
+                if (playerSection == null) continue;
+
+                Map<String, Anchor> anchors = new ConcurrentHashMap<>();
+                for (String anchorName : playerSection.getKeys(false)) {
+                    ConfigurationSection anchorSection = playerSection.getConfigurationSection(anchorName);
+                    if (anchorSection == null) continue;
+
+                    String world = anchorSection.getString("world");
+                    int x = anchorSection.getInt("x");
+                    int z = anchorSection.getInt("z");
+                    String loadModeStr = anchorSection.getString("load-mode", "DEFAULT");
+                    LoadMode loadMode;
+                    try {
+                        loadMode = LoadMode.valueOf(loadModeStr);
+                    } catch (IllegalArgumentException e) {
+                        loadMode = LoadMode.DEFAULT;
+                    }
+                    boolean enabled = anchorSection.getBoolean("enabled", true);
+                    int priority = anchorSection.getInt("priority", 0);
+                    AnchorShape shape = null;
+                    String shapeStr = anchorSection.getString("shape");
+                    if (shapeStr != null) {
+                        try {
+                            shape = AnchorShape.parse(shapeStr);
+                        } catch (IllegalArgumentException e) {
+                            logger.warning("Invalid shape for anchor " + anchorName + " in anchors.yml: " + shapeStr);
+                        }
+                    }
+                    LoadSchedule schedule = null;
+                    String scheduleStr = anchorSection.getString("schedule");
+                    if (scheduleStr != null) {
+                        try {
+                            schedule = LoadSchedule.parse(scheduleStr);
+                        } catch (IllegalArgumentException e) {
+                            logger.warning("Invalid schedule for anchor " + anchorName + " in anchors.yml: " + scheduleStr);
+                        }
+                    }
+
+                    if (world != null) {
+                        anchors.put(anchorName, new Anchor(world, x, z, loadMode, enabled, priority, shape, schedule));
+                    }
+                }
+
+                if (!anchors.isEmpty()) {
+                    target.put(uuid, anchors);
+                }
+            } catch (IllegalArgumentException e) {
+                logger.warning("Invalid player UUID in anchors.yml: " + uuidStr);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package pl.psalkowski.chunkanchor.util;
+
+public final class ChunkCoords {
+
+    private ChunkCoords() {
+    }
+
+    public static long key(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    public static int x(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int z(long key) {
+        return (int) key;
+    }
+}
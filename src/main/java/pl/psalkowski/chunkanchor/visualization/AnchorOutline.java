@@ -0,0 +1,217 @@
+package pl.psalkowski.chunkanchor.visualization;
+
+import org.bukkit.World;
+import pl.psalkowski.chunkanchor.model.AnchorShape;
+import pl.psalkowski.chunkanchor.scheduler.TaskScheduler;
+import pl.psalkowski.chunkanchor.util.ChunkCoords;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class AnchorOutline {
+
+    public static final int MAX_LEVEL = 3;
+    public static final double PILLAR_HEIGHT = 10;
+
+    private static final double PILLAR_STEP = 0.5;
+    private static final int OUTLINE_STEP = 2;
+    private static final int PILLAR_POINTS = (int) (PILLAR_HEIGHT / PILLAR_STEP) + 1;
+
+    private final World world;
+    private final double[] coordinates;
+    private final byte[] levels;
+    private final int pointCount;
+    private final int pillarCount;
+
+    private AnchorOutline(World world, double[] coordinates, byte[] levels, int pointCount, int pillarCount) {
+        this.world = world;
+        this.coordinates = coordinates;
+        this.levels = levels;
+        this.pointCount = pointCount;
+        this.pillarCount = pillarCount;
+    }
+
+    public static AnchorOutline compute(TaskScheduler scheduler, World world, int minX, int maxX, int minZ, int maxZ) {
+        int outlinePoints = ((maxX - minX) / OUTLINE_STEP + 1) * 2 + ((maxZ - minZ) / OUTLINE_STEP + 1) * 2;
+        int capacity = PILLAR_POINTS * 4 + outlinePoints;
+        double[] coordinates = new double[capacity * 3];
+        byte[] levels = new byte[capacity];
+        int count = 0;
+        int pillars = 0;
+
+        int[][] corners = {
+            {minX, minZ},
+            {maxX, minZ},
+            {minX, maxZ},
+            {maxX, maxZ}
+        };
+
+        for (int[] corner : corners) {
+            int x = corner[0];
+            int z = corner[1];
+
+            if (!isReadable(scheduler, world, x, z)) {
+                continue;
+            }
+
+            int groundY = world.getHighestBlockYAt(x, z);
+            for (int step = 0; step < PILLAR_POINTS; step++) {
+                count = put(coordinates, levels, count, x, groundY + step * PILLAR_STEP, z, step);
+            }
+            pillars++;
+        }
+
+        for (int x = minX, step = 0; x <= maxX; x += OUTLINE_STEP, step++) {
+            count = putGround(scheduler, world, coordinates, levels, count, x, minZ, step);
+            count = putGround(scheduler, world, coordinates, levels, count, x, maxZ, step);
+        }
+
+        for (int z = minZ, step = 0; z <= maxZ; z += OUTLINE_STEP, step++) {
+            count = putGround(scheduler, world, coordinates, levels, count, minX, z, step);
+            count = putGround(scheduler, world, coordinates, levels, count, maxX, z, step);
+        }
+
+        return new AnchorOutline(world, Arrays.copyOf(coordinates, count * 3), Arrays.copyOf(levels, count), count, pillars);
+    }
+
+    /**
+     * Outline of an anchor's chunk set. Boxes use the rectangle outline; other shapes trace every chunk
+     * edge that borders a chunk outside the shape, with pillars where the boundary turns.
+     */
+    public static AnchorOutline compute(TaskScheduler scheduler, World world, int chunkX, int chunkZ, AnchorShape shape) {
+        if (shape.isBox()) {
+            return compute(scheduler, world, (chunkX + shape.getMinDx()) * 16, (chunkX + shape.getMaxDx() + 1) * 16,
+                    (chunkZ + shape.getMinDz()) * 16, (chunkZ + shape.getMaxDz() + 1) * 16);
+        }
+
+        // First pass finds the pillars and boundary edges so the point buffers can be sized exactly
+        int chunks = shape.getChunkCount();
+        Set<Long> seen = new HashSet<>();
+        List<Long> corners = new ArrayList<>();
+        int edges = 0;
+        for (int i = 0; i < chunks; i++) {
+            int dx = shape.dx(i);
+            int dz = shape.dz(i);
+            for (int vx = dx; vx <= dx + 1; vx++) {
+                for (int vz = dz; vz <= dz + 1; vz++) {
+                    long vertex = ChunkCoords.key(vx, vz);
+                    if (isCorner(shape, vx, vz) && seen.add(vertex)) {
+                        corners.add(vertex);
+                    }
+                }
+            }
+            edges += (shape.contains(dx, dz - 1) ? 0 : 1) + (shape.contains(dx, dz + 1) ? 0 : 1)
+                    + (shape.contains(dx - 1, dz) ? 0 : 1) + (shape.contains(dx + 1, dz) ? 0 : 1);
+        }
+
+        int capacity = PILLAR_POINTS * corners.size() + (16 / OUTLINE_STEP) * edges;
+        double[] coordinates = new double[capacity * 3];
+        byte[] levels = new byte[capacity];
+        int count = 0;
+        int pillars = 0;
+
+        for (long vertex : corners) {
+            int x = (chunkX + ChunkCoords.x(vertex)) * 16;
+            int z = (chunkZ + ChunkCoords.z(vertex)) * 16;
+            if (!isReadable(scheduler, world, x, z)) {
+                continue;
+            }
+            int groundY = world.getHighestBlockYAt(x, z);
+            for (int step = 0; step < PILLAR_POINTS; step++) {
+                count = put(coordinates, levels, count, x, groundY + step * PILLAR_STEP, z, step);
+            }
+            pillars++;
+        }
+
+        for (int i = 0; i < chunks; i++) {
+            int dx = shape.dx(i);
+            int dz = shape.dz(i);
+            int minX = (chunkX + dx) * 16;
+            int minZ = (chunkZ + dz) * 16;
+            for (int offset = 0, step = 0; offset < 16; offset += OUTLINE_STEP, step++) {
+                if (!shape.contains(dx, dz - 1)) {
+                    count = putGround(scheduler, world, coordinates, levels, count, minX + offset, minZ, step);
+                }
+                if (!shape.contains(dx, dz + 1)) {
+                    count = putGround(scheduler, world, coordinates, levels, count, minX + 16 - offset, minZ + 16, step);
+                }
+                if (!shape.contains(dx - 1, dz)) {
+                    count = putGround(scheduler, world, coordinates, levels, count, minX, minZ + 16 - offset, step);
+                }
+                if (!shape.contains(dx + 1, dz)) {
+                    count = putGround(scheduler, world, coordinates, levels, count, minX + 16, minZ + offset, step);
+                }
+            }
+        }
+
+        return new AnchorOutline(world, Arrays.copyOf(coordinates, count * 3), Arrays.copyOf(levels, count), count, pillars);
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public int getPillarPoints() {
+        return PILLAR_POINTS;
+    }
+
+    public boolean isPillarStart(int point) {
+        return point < pillarCount * PILLAR_POINTS && point % PILLAR_POINTS == 0;
+    }
+
+    public double x(int point) {
+        return coordinates[point * 3];
+    }
+
+    public double y(int point) {
+        return coordinates[point * 3 + 1];
+    }
+
+    public double z(int point) {
+        return coordinates[point * 3 + 2];
+    }
+
+    public int level(int point) {
+        return levels[point];
+    }
+
+    private static int putGround(TaskScheduler scheduler, World world, double[] coordinates, byte[] levels, int count, int x, int z, int step) {
+        if (!isReadable(scheduler, world, x, z)) {
+            return count;
+        }
+        return put(coordinates, levels, count, x, world.getHighestBlockYAt(x, z) + 1, z, step);
+    }
+
+    private static int put(double[] coordinates, byte[] levels, int count, double x, double y, double z, int step) {
+        int offset = count * 3;
+        coordinates[offset] = x;
+        coordinates[offset + 1] = y;
+        coordinates[offset + 2] = z;
+        levels[count] = (byte) Math.min(MAX_LEVEL, Integer.numberOfTrailingZeros(step));
+        return count + 1;
+    }
+
+    private static boolean isCorner(AnchorShape shape, int vx, int vz) {
+        boolean northWest = shape.contains(vx - 1, vz - 1);
+        boolean northEast = shape.contains(vx, vz - 1);
+        boolean southWest = shape.contains(vx - 1, vz);
+        boolean southEast = shape.contains(vx, vz);
+        int inside = (northWest ? 1 : 0) + (northEast ? 1 : 0) + (southWest ? 1 : 0) + (southEast ? 1 : 0);
+        return inside == 1 || inside == 3 || (inside == 2 && northWest == southEast);
+    }
+
+    /**
+     * Heights can only be read from chunks that are loaded and, on Folia, owned by the calling region;
+     * points elsewhere are left out of the outline.
+     */
+    private static boolean isReadable(TaskScheduler scheduler, World world, int x, int z) {
+        return world.isChunkLoaded(x >> 4, z >> 4) && scheduler.isOwnedByCurrentThread(world, x >> 4, z >> 4);
+    }
+}
@@ -1,29 +1,72 @@
 package pl.psalkowski.chunkanchor.visualization;
 
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
 import org.bukkit.Particle;
 import org.bukkit.World;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
-import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitTask;
 import pl.psalkowski.chunkanchor.manager.AnchorManager;
 import pl.psalkowski.chunkanchor.manager.AnchorManager.Anchor;
+import pl.psalkowski.chunkanchor.model.AnchorShape;
+import pl.psalkowski.chunkanchor.scheduler.TaskHandle;
+import pl.psalkowski.chunkanchor.scheduler.TaskScheduler;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * One shared task decides each tick which viewers to render, but a viewer's shows are only created,
+ * rendered and expired on the thread that owns the viewer, so on Folia they are never touched by two
+ * regions at once.
+ */
 public class AnchorVisualizer {
 
-    private final Plugin plugin;
+    private static final long FRAME_INTERVAL_TICKS = 5L;
+    private static final int COLLAPSE_PILLAR_LEVEL = 2;
+
+    private static class ActiveShow {
+        private final AnchorOutline outline;
+        private final long expiresAt;
+        private long nextFrameAt;
+        private int cursor;
+
+        private ActiveShow(AnchorOutline outline, long startedAt, long expiresAt) {
+            this.outline = outline;
+            this.nextFrameAt = startedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final TaskScheduler scheduler;
     private final AnchorManager anchorManager;
-    private final int chunkRadius;
     private final int showDuration;
+    private final int maxParticlesPerPlayer;
+    private final int maxParticlesPerTick;
+    private final boolean levelOfDetail;
+    private final double lodDistance;
+    // Each viewer's map is confined to the thread that owns the viewer
+    private final Map<UUID, Map<Integer, ActiveShow>> shows = new ConcurrentHashMap<>();
+    private final AtomicInteger activeShows = new AtomicInteger();
+    private final List<UUID> viewers = new ArrayList<>();
+    private TaskHandle task;
+    private volatile long currentTick;
+    private int rotation;
 
-    public AnchorVisualizer(Plugin plugin, FileConfiguration config, AnchorManager anchorManager) {
-        this.plugin = plugin;
+    public AnchorVisualizer(FileConfiguration config, TaskScheduler scheduler, AnchorManager anchorManager) {
+        this.scheduler = scheduler;
         this.anchorManager = anchorManager;
-        this.chunkRadius = config.getInt("chunk-radius", 3);
         this.showDuration = config.getInt("show-duration", 30);
+        this.maxParticlesPerPlayer = Math.max(1, config.getInt("visualization.max-particles-per-player-tick", 100));
+        this.maxParticlesPerTick = Math.max(1, config.getInt("visualization.max-particles-per-tick", 1000));
+        this.levelOfDetail = config.getBoolean("visualization.level-of-detail", true);
+        this.lodDistance = Math.max(1.0, config.getDouble("visualization.lod-distance", 32.0));
     }
 
     public void showAnchor(Player player, UUID playerId, String anchorName) {
@@ -37,72 +80,186 @@ public class AnchorVisualizer {
             return;
         }
 
-        int cX = anchor.chunkX();
-        int cZ = anchor.chunkZ();
+        AnchorShape shape = anchorManager.getShape(anchor);
+        // Ground heights are read on the region that owns the anchor, the show is added on the viewer's
+        scheduler.runAtChunk(world, anchor.chunkX(), anchor.chunkZ(), () -> {
+            AnchorOutline outline = AnchorOutline.compute(scheduler, world, anchor.chunkX(), anchor.chunkZ(), shape);
+            scheduler.runForPlayer(player, () -> addShow(player.getUniqueId(), anchor.id(), outline));
+        });
+    }
 
-        int minX = (cX - chunkRadius) * 16;
-        int maxX = (cX + chunkRadius + 1) * 16;
-        int minZ = (cZ - chunkRadius) * 16;
-        int maxZ = (cZ + chunkRadius + 1) * 16;
+    /**
+     * Called when the viewer leaves, on the thread that owned them.
+     */
+    public void cancelShows(UUID viewerId) {
+        discard(viewerId);
+    }
 
-        BukkitTask task = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            if (!player.isOnline()) {
-                return;
-            }
+    public int getActiveShowCount() {
+        return activeShows.get();
+    }
 
-            spawnCornerPillars(player, world, minX, maxX, minZ, maxZ);
-            spawnGroundOutline(player, world, minX, maxX, minZ, maxZ);
-        }, 0L, 5L);
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        shows.clear();
+        activeShows.set(0);
+    }
 
-        Bukkit.getScheduler().runTaskLater(plugin, task::cancel, showDuration * 20L);
+    private void addShow(UUID viewerId, int anchorId, AnchorOutline outline) {
+        long now = currentTick;
+        Map<Integer, ActiveShow> playerShows = shows.computeIfAbsent(viewerId, id -> new LinkedHashMap<>());
+        if (playerShows.put(anchorId, new ActiveShow(outline, now, now + showDuration * 20L)) == null) {
+            activeShows.incrementAndGet();
+        }
+        ensureRunning();
     }
 
-    private void spawnCornerPillars(Player player, World world, int minX, int maxX, int minZ, int maxZ) {
-        int[][] corners = {
-            {minX, minZ},
-            {maxX, minZ},
-            {minX, maxZ},
-            {maxX, maxZ}
-        };
+    private void discard(UUID viewerId) {
+        Map<Integer, ActiveShow> playerShows = shows.remove(viewerId);
+        if (playerShows != null) {
+            activeShows.addAndGet(-playerShows.size());
+        }
+    }
+
+    private void tick() {
+        currentTick++;
 
-        for (int[] corner : corners) {
-            int x = corner[0];
-            int z = corner[1];
+        viewers.clear();
+        viewers.addAll(shows.keySet());
+        int budget = maxParticlesPerTick;
+        int start = viewers.isEmpty() ? 0 : rotation++ % viewers.size();
 
-            if (!isChunkLoaded(world, x, z)) {
+        for (int i = 0; i < viewers.size(); i++) {
+            UUID viewerId = viewers.get((start + i) % viewers.size());
+            Player player = Bukkit.getPlayer(viewerId);
+            if (player == null || !player.isOnline()) {
+                // Normally already done by cancelShows; nothing runs on the viewer's thread once they are gone
+                discard(viewerId);
                 continue;
             }
+            int allowance = Math.min(budget, maxParticlesPerPlayer);
+            if (scheduler.isOwnedByCurrentThread(player)) {
+                budget -= renderViewer(player, allowance);
+            } else {
+                // Folia: the player is ticked by its region, so the whole allowance is charged up front
+                scheduler.runForPlayer(player, () -> renderViewer(player, allowance));
+                budget -= allowance;
+            }
+        }
 
-            int groundY = world.getHighestBlockYAt(x, z);
+        stopIfIdle();
+    }
 
-            for (double y = groundY; y <= groundY + 10; y += 0.5) {
-                player.spawnParticle(Particle.END_ROD, x, y, z, 1, 0, 0, 0, 0);
-            }
+    private synchronized void ensureRunning() {
+        if (task == null) {
+            task = scheduler.runGlobalTimer(this::tick, 1L, 1L);
         }
     }
 
-    private void spawnGroundOutline(Player player, World world, int minX, int maxX, int minZ, int maxZ) {
-        for (int x = minX; x <= maxX; x += 2) {
-            spawnGroundParticle(player, world, x, minZ);
-            spawnGroundParticle(player, world, x, maxZ);
+    private synchronized void stopIfIdle() {
+        if (shows.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
         }
+    }
 
-        for (int z = minZ; z <= maxZ; z += 2) {
-            spawnGroundParticle(player, world, minX, z);
-            spawnGroundParticle(player, world, maxX, z);
+    private int renderViewer(Player player, int budget) {
+        Map<Integer, ActiveShow> playerShows = shows.get(player.getUniqueId());
+        if (playerShows == null) {
+            return 0;
         }
+
+        int sent = 0;
+        Iterator<ActiveShow> iterator = playerShows.values().iterator();
+        while (iterator.hasNext()) {
+            ActiveShow show = iterator.next();
+            if (currentTick >= show.expiresAt) {
+                iterator.remove();
+                activeShows.decrementAndGet();
+                continue;
+            }
+            if (show.cursor == 0 && currentTick < show.nextFrameAt) {
+                continue;
+            }
+
+            AnchorOutline outline = show.outline;
+            if (player.getWorld() != outline.getWorld()) {
+                continue;
+            }
+
+            sent += renderFrame(player, show, budget - sent);
+
+            if (show.cursor == outline.getPointCount()) {
+                show.cursor = 0;
+                show.nextFrameAt = currentTick + FRAME_INTERVAL_TICKS;
+            }
+            if (sent >= budget) {
+                break;
+            }
+        }
+        if (playerShows.isEmpty()) {
+            shows.remove(player.getUniqueId(), playerShows);
+        }
+        return sent;
     }
 
-    private void spawnGroundParticle(Player player, World world, int x, int z) {
-        if (!isChunkLoaded(world, x, z)) {
-            return;
+    private int renderFrame(Player player, ActiveShow show, int budget) {
+        AnchorOutline outline = show.outline;
+        Location location = player.getLocation();
+        double viewerX = location.getX();
+        double viewerZ = location.getZ();
+        double viewDistance = Math.min(player.getViewDistance(), player.getClientViewDistance()) * 16.0;
+        double viewDistanceSquared = viewDistance * viewDistance;
+
+        int sent = 0;
+        int i = show.cursor;
+        while (i < outline.getPointCount() && sent < budget) {
+            int level = 0;
+            if (levelOfDetail) {
+                level = levelFor(viewerX, viewerZ, outline.x(i), outline.z(i), viewDistanceSquared);
+                if (level < 0) {
+                    i++;
+                    continue;
+                }
+            }
+
+            if (level >= COLLAPSE_PILLAR_LEVEL && outline.isPillarStart(i)) {
+                int points = outline.getPillarPoints();
+                player.spawnParticle(Particle.END_ROD, outline.x(i), outline.y(i) + AnchorOutline.PILLAR_HEIGHT / 2, outline.z(i),
+                        Math.max(2, points >> level), 0, AnchorOutline.PILLAR_HEIGHT / 4, 0, 0);
+                sent++;
+                i += points;
+                continue;
+            }
+
+            if (outline.level(i) >= level) {
+                player.spawnParticle(Particle.END_ROD, outline.x(i), outline.y(i), outline.z(i), 1, 0, 0, 0, 0);
+                sent++;
+            }
+            i++;
         }
 
-        int y = world.getHighestBlockYAt(x, z) + 1;
-        player.spawnParticle(Particle.END_ROD, x, y, z, 1, 0, 0, 0, 0);
+        show.cursor = i;
+        return sent;
     }
 
-    private boolean isChunkLoaded(World world, int x, int z) {
-        return world.isChunkLoaded(x >> 4, z >> 4);
+    private int levelFor(double viewerX, double viewerZ, double x, double z, double viewDistanceSquared) {
+        double dx = x - viewerX;
+        double dz = z - viewerZ;
+        double distanceSquared = dx * dx + dz * dz;
+        if (distanceSquared > viewDistanceSquared) {
+            return -1;
+        }
+
+        int level = 0;
+        double threshold = lodDistance;
+        while (level < AnchorOutline.MAX_LEVEL && distanceSquared > threshold * threshold) {
+            level++;
+            threshold *= 2;
+        }
+        return level;
     }
 }
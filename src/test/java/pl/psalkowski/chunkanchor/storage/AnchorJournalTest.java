@@ -0,0 +1,125 @@
+package pl.psalkowski.chunkanchor.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.psalkowski.chunkanchor.manager.AnchorManager.Anchor;
+import pl.psalkowski.chunkanchor.model.AnchorShape;
+import pl.psalkowski.chunkanchor.model.LoadMode;
+import pl.psalkowski.chunkanchor.util.ChunkCoords;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnchorJournalTest {
+
+    private static final UUID OWNER = new UUID(1, 2);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysLargestLegalEntry() throws IOException {
+        long[] offsets = new long[AnchorShape.MAX_CHUNKS];
+        int i = 0;
+        for (int dx = -AnchorShape.MAX_EXTENT; dx <= AnchorShape.MAX_EXTENT; dx++) {
+            for (int dz = -AnchorShape.MAX_EXTENT; dz <= AnchorShape.MAX_EXTENT; dz++) {
+                offsets[i++] = ChunkCoords.key(dx, dz);
+            }
+        }
+        Anchor anchor = new Anchor("world", 0, 0, LoadMode.DEFAULT, true, 0, AnchorShape.list(offsets));
+        byte[] entry = AnchorJournal.encodePut(OWNER, "big", anchor);
+        assertTrue(entry.length - 8 <= AnchorJournal.MAX_ENTRY_SIZE);
+
+        AnchorJournal journal = open();
+        journal.load(new HashMap<>());
+        journal.append(List.of(entry));
+        journal.close();
+
+        Map<UUID, Map<String, Anchor>> loaded = new HashMap<>();
+        AnchorJournal reopened = open();
+        reopened.load(loaded);
+        reopened.close();
+
+        assertEquals(anchor, loaded.get(OWNER).get("big"));
+        assertEquals(1, reopened.getEntryCount());
+        assertFalse(hasCorruptCopy());
+    }
+
+    @Test
+    void truncatesAtDamagedEntryAndKeepsCopy() throws IOException {
+        AnchorJournal journal = open();
+        journal.load(new HashMap<>());
+        byte[] first = AnchorJournal.encodePut(OWNER, "first", new Anchor("world", 0, 0));
+        byte[] second = AnchorJournal.encodePut(OWNER, "second", new Anchor("world", 16, 16));
+        byte[] third = AnchorJournal.encodePut(OWNER, "third", new Anchor("world", 32, 32));
+        journal.append(List.of(first, second, third));
+        journal.close();
+
+        Path file = dir.resolve("anchors.journal");
+        long secondStart = Files.size(file) - third.length - second.length;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), secondStart + 8);
+        }
+
+        Map<UUID, Map<String, Anchor>> loaded = new HashMap<>();
+        AnchorJournal reopened = open();
+        reopened.load(loaded);
+        assertEquals(List.of("first"), List.copyOf(loaded.get(OWNER).keySet()));
+        assertEquals(secondStart, Files.size(file));
+        assertTrue(hasCorruptCopy());
+
+        reopened.append(List.of(AnchorJournal.encodeRemove(OWNER, "first")));
+        reopened.close();
+
+        Map<UUID, Map<String, Anchor>> afterAppend = new HashMap<>();
+        AnchorJournal again = open();
+        again.load(afterAppend);
+        again.close();
+        assertFalse(afterAppend.containsKey(OWNER));
+        assertEquals(2, again.getEntryCount());
+    }
+
+    @Test
+    void compactResetsEntryCount() throws IOException {
+        Map<UUID, Map<String, Anchor>> anchors = new HashMap<>();
+        AnchorJournal journal = open();
+        journal.load(anchors);
+        Anchor anchor = new Anchor("world", 0, 0);
+        journal.append(List.of(AnchorJournal.encodePut(OWNER, "home", anchor)));
+        anchors.put(OWNER, Map.of("home", anchor));
+        journal.compact(anchors);
+        assertEquals(0, journal.getEntryCount());
+        journal.close();
+
+        Map<UUID, Map<String, Anchor>> loaded = new HashMap<>();
+        AnchorJournal reopened = open();
+        reopened.load(loaded);
+        reopened.close();
+        assertEquals(anchor, loaded.get(OWNER).get("home"));
+        assertEquals(0, reopened.getEntryCount());
+    }
+
+    private AnchorJournal open() {
+        return new AnchorJournal(dir.resolve("anchors.dat"), dir.resolve("anchors.journal"), Logger.getLogger("test"));
+    }
+
+    private boolean hasCorruptCopy() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.anyMatch(path -> path.getFileName().toString().startsWith("anchors.journal.corrupt-"));
+        }
+    }
+}